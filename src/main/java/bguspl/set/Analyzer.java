@@ -0,0 +1,214 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * Estimates, by Monte Carlo simulation, how a table and deck configuration plays:
+ * the probability that a random table has no set, the expected number of sets on a random table, and the expected
+ * number of rounds per game (and how many of them have no set at all, and so last the whole turn timeout).
+ * Games are played by ideal players, who claim a set as soon as there is one on the table.
+ * The trials run in parallel, in chunks that each have their own random stream, so the results only depend on the seed.
+ * Settings given as comma separated lists are swept (every combination is analyzed).
+ * Run with: mvn compile && java -cp target/classes bguspl.set.Analyzer [deals] [games] [Key=Value[,Value ...] ...]
+ * For example: java -cp target/classes bguspl.set.Analyzer 1000000 10000 Rows=3,4 Columns=3,4,5 FeatureCount=3,4
+ */
+public class Analyzer {
+
+    private static final int DEFAULT_DEALS = 1_000_000;
+    private static final int DEFAULT_GAMES = 10_000;
+
+    /**
+     * The number of trials run by each parallel task.
+     */
+    private static final int CHUNK = 1_000;
+
+    /**
+     * The results of a number of trials of one configuration.
+     */
+    public static final class Result {
+        long deals;
+        long noSetDeals;
+        long setsOnTables;
+        long games;
+        long rounds;
+        long emptyRounds;
+        long setsInGames;
+
+        private Result merge(Result other) {
+            deals += other.deals;
+            noSetDeals += other.noSetDeals;
+            setsOnTables += other.setsOnTables;
+            games += other.games;
+            rounds += other.rounds;
+            emptyRounds += other.emptyRounds;
+            setsInGames += other.setsInGames;
+            return this;
+        }
+
+        /**
+         * @return - the probability that a random table has no set.
+         */
+        public double noSetProbability() {
+            return deals == 0 ? 0 : (double) noSetDeals / deals;
+        }
+
+        /**
+         * @return - the expected number of sets on a random table.
+         */
+        public double setsPerTable() {
+            return deals == 0 ? 0 : (double) setsOnTables / deals;
+        }
+
+        /**
+         * @return - the expected number of rounds (deals of a full table) per game.
+         */
+        public double roundsPerGame() {
+            return games == 0 ? 0 : (double) rounds / games;
+        }
+
+        /**
+         * @return - the expected number of rounds per game in which there was no set on the table at all.
+         */
+        public double emptyRoundsPerGame() {
+            return games == 0 ? 0 : (double) emptyRounds / games;
+        }
+
+        /**
+         * @return - the expected number of sets claimed per game.
+         */
+        public double setsPerGame() {
+            return games == 0 ? 0 : (double) setsInGames / games;
+        }
+    }
+
+    private final Config config;
+    private final UtilImpl util;
+
+    public Analyzer(Config config) {
+        this.config = config;
+        util = new UtilImpl(config);
+    }
+
+    /**
+     * Runs the trials of the configuration in parallel.
+     *
+     * @param deals - the number of random tables to deal.
+     * @param games - the number of games to play.
+     * @return - the results.
+     */
+    public Result analyze(int deals, int games) {
+        int dealChunks = (deals + CHUNK - 1) / CHUNK, gameChunks = (games + CHUNK - 1) / CHUNK;
+        return IntStream.range(0, dealChunks + gameChunks).parallel()
+                .mapToObj(chunk -> {
+                    SplittableRandom random = new SplittableRandom(config.seed ^ (chunk * 0x9E3779B97F4A7C15L));
+                    return chunk < dealChunks
+                            ? deal(Math.min(CHUNK, deals - chunk * CHUNK), random)
+                            : play(Math.min(CHUNK, games - (chunk - dealChunks) * CHUNK), random);
+                })
+                .reduce(new Result(), Result::merge);
+    }
+
+    /**
+     * Deals random tables from a full deck, and counts their sets.
+     */
+    private Result deal(int deals, SplittableRandom random) {
+        Result result = new Result();
+        int[] cards = IntStream.range(0, config.deckSize).toArray();
+        int tableSize = Math.min(config.tableSize, cards.length);
+        for (int i = 0; i < deals; i++) {
+            for (int slot = 0; slot < tableSize; slot++) // a partial shuffle: the table is the first tableSize cards
+                swap(cards, slot, slot + random.nextInt(cards.length - slot));
+            int sets = util.countSets(cards, tableSize);
+            if (sets == 0) result.noSetDeals++;
+            result.setsOnTables += sets;
+        }
+        result.deals = deals;
+        return result;
+    }
+
+    /**
+     * Plays games the way the dealer runs them: every round the remaining cards are shuffled and the table is dealt,
+     * sets are claimed and replaced from the deck until there is no set on the table, and then all the cards are
+     * collected. The game ends when there is no set among the remaining cards.
+     */
+    private Result play(int games, SplittableRandom random) {
+        Result result = new Result();
+        int[] cards = new int[config.deckSize];
+        int[] table = new int[config.tableSize];
+        for (int game = 0; game < games; game++) {
+            Arrays.setAll(cards, card -> card);
+            int remaining = cards.length;
+            while (!util.findSets(Arrays.copyOf(cards, remaining), 1).isEmpty()) {
+                result.rounds++;
+                for (int i = remaining - 1; i > 0; i--)
+                    swap(cards, i, random.nextInt(i + 1));
+                int dealt = 0, onTable = 0, claimed = 0;
+                while (onTable < table.length && dealt < remaining)
+                    table[onTable++] = cards[dealt++];
+                for (List<int[]> sets; !(sets = util.findSets(Arrays.copyOf(table, onTable), 1)).isEmpty(); claimed++) {
+                    for (int card : sets.get(0)) { // remove the set's cards, and fill their slots from the deck
+                        int slot = 0;
+                        while (table[slot] != card) slot++;
+                        table[slot] = dealt < remaining ? cards[dealt++] : table[--onTable];
+                    }
+                }
+                if (claimed == 0) result.emptyRounds++;
+                result.setsInGames += claimed;
+                System.arraycopy(cards, dealt, cards, 0, remaining - dealt); // the rest of the deck and the table are the remaining cards
+                System.arraycopy(table, 0, cards, remaining - dealt, onTable);
+                remaining = remaining - dealt + onTable;
+            }
+        }
+        result.games = games;
+        return result;
+    }
+
+    private static void swap(int[] cards, int i, int j) {
+        int card = cards[i];
+        cards[i] = cards[j];
+        cards[j] = card;
+    }
+
+    public static void main(String[] args) {
+        Logger logger = Logger.getLogger("SetAnalyzerLogger");
+        logger.setUseParentHandlers(false);
+
+        Properties properties = Config.loadProperties("config.properties", logger);
+        int deals = DEFAULT_DEALS, games = DEFAULT_GAMES, positional = 0;
+        List<String[]> sweeps = new ArrayList<>();
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (split < 0 && positional++ == 0) deals = Integer.parseInt(arg);
+            else if (split < 0) games = Integer.parseInt(arg);
+            else sweeps.add(new String[]{arg.substring(0, split).trim(), arg.substring(split + 1).trim()});
+        }
+        if (properties.getProperty("Seed", "").isBlank()) properties.put("Seed", "0"); // repeatable by default
+
+        System.out.printf("%-40s %10s %11s %12s %12s %10s %8s%n", "configuration", "P(no set)", "sets/table",
+                "rounds/game", "empty/game", "sets/game", "time");
+        sweep(properties, sweeps, 0, deals, games, logger);
+    }
+
+    private static void sweep(Properties properties, List<String[]> sweeps, int key, int deals, int games, Logger logger) {
+        if (key == sweeps.size()) {
+            Config config = new Config(logger, properties);
+            long start = System.nanoTime();
+            Result result = new Analyzer(config).analyze(deals, games);
+            System.out.printf("%-40s %10.5f %11.3f %12.2f %12.2f %10.2f %7.1fs%n",
+                    String.format("Rows=%d Columns=%d FeatureCount=%d FeatureSize=%d", config.rows, config.columns, config.featureCount, config.featureSize),
+                    result.noSetProbability(), result.setsPerTable(), result.roundsPerGame(), result.emptyRoundsPerGame(),
+                    result.setsPerGame(), (System.nanoTime() - start) / 1e9);
+            return;
+        }
+        for (String value : sweeps.get(key)[1].split(",")) {
+            properties.put(sweeps.get(key)[0], value.trim());
+            sweep(properties, sweeps, key + 1, deals, games, logger);
+        }
+    }
+}
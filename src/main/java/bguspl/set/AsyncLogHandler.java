@@ -0,0 +1,215 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * A log handler that keeps logging off the game threads: publishing a record only puts it in a bounded lock-free ring
+ * buffer, and a background writer formats the records (so the parameters of a parameterised record are formatted
+ * there, not by the logging thread) and appends them to the log file in batches, through one buffered NIO write per
+ * batch. When the ring is full the record is dropped and counted rather than blocking the game, and the writer notes
+ * in the log how many records were dropped.
+ */
+public class AsyncLogHandler extends Handler {
+
+    /**
+     * The default number of records the ring buffer holds.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * How long the writer sleeps when the ring is empty (it is also woken up when the ring fills up to a half).
+     */
+    private static final long WRITER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final AtomicReferenceArray<LogRecord> ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong(); // the next index to publish to (claimed by the logging threads)
+    private volatile long head; // the next index to write (advanced by the writer only)
+
+    private final LongAdder dropped = new LongAdder();
+    private long droppedReported; // the drops already noted in the log
+
+    /**
+     * Only one thread drains the ring at a time: the writer, or a thread that calls flush() or close().
+     * The file, the buffer and the encoder are used under this lock only.
+     */
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+    private volatile Thread writer; // null until started
+    private volatile boolean closed;
+
+    /**
+     * Opens a handler that writes the records on its background writer, with a SimpleFormatter.
+     *
+     * @param file     - the log file (created, or appended to).
+     * @param capacity - the number of records the ring buffer holds (rounded up to a power of 2).
+     * @throws IOException - if the file cannot be opened.
+     */
+    public static AsyncLogHandler start(Path file, int capacity) throws IOException {
+        AsyncLogHandler handler = new AsyncLogHandler(file, capacity);
+        handler.setFormatter(new SimpleFormatter());
+        Thread writer = new Thread(handler::writeLoop, "log-writer");
+        writer.setDaemon(true);
+        handler.writer = writer;
+        writer.start();
+        return handler;
+    }
+
+    /**
+     * Constructor for testing: the records are written only on calls to flush() and close() (and there is no formatter
+     * until one is set).
+     */
+    AsyncLogHandler(Path file, int capacity) throws IOException {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        ring = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Puts the record in the ring buffer (or drops it if the ring is full). Never blocks.
+     */
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) return;
+        long index;
+        do {
+            index = tail.get();
+            if (index - head >= ring.length()) {
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(index, index + 1));
+        ring.set((int) index & mask, record);
+        if (index - head == ring.length() >> 1) LockSupport.unpark(writer);
+    }
+
+    private void writeLoop() {
+        while (!closed) {
+            drain();
+            if (tail.get() == head) LockSupport.parkNanos(this, WRITER_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Formats and writes all the records published so far.
+     */
+    private void drain() {
+        drainLock.lock();
+        try {
+            long end = tail.get();
+            long next = head;
+            while (next < end) {
+                int slot = (int) next & mask;
+                LogRecord record = ring.get(slot);
+                if (record == null) { // claimed, but not published yet (let the logging thread finish)
+                    Thread.yield();
+                    continue;
+                }
+                ring.set(slot, null);
+                head = ++next; // frees the slot for the logging threads
+                append(format(record));
+            }
+            long drops = dropped.sum();
+            if (drops != droppedReported) {
+                append("[log] " + (drops - droppedReported) + " records dropped (the log buffer was full)" + System.lineSeparator());
+                droppedReported = drops;
+            }
+            write();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private String format(LogRecord record) {
+        try {
+            return getFormatter().format(record);
+        } catch (RuntimeException e) {
+            reportError(null, e, ErrorManager.FORMAT_FAILURE);
+            return "";
+        }
+    }
+
+    private void append(String text) {
+        CharBuffer chars = CharBuffer.wrap(text);
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (!result.isOverflow()) break;
+            write();
+        }
+        encoder.reset();
+    }
+
+    private void write() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes all the records published so far (on the calling thread).
+     */
+    @Override
+    public void flush() {
+        if (channel.isOpen()) drain();
+    }
+
+    /**
+     * Stops the writer, writes the records published so far and closes the file.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        Thread writer = this.writer;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(TimeUnit.NANOSECONDS.toMillis(WRITER_PARK_NANOS) * 10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.CLOSE_FAILURE);
+        }
+    }
+
+    /**
+     * @return - the number of records dropped because the ring buffer was full.
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,67 @@
+package bguspl.set;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.stream.IntStream;
+
+/**
+ * All the card images (and the empty card), pre-scaled to the cell size and converted to the format of the screen
+ * (when there is one), so drawing a card is a plain copy rather than a scale and a format conversion on every paint.
+ * The images are decoded and scaled in parallel.
+ * Every card keeps an image of its own: copying a whole image is cheaper than copying a rectangle out of one big sheet.
+ */
+class CardAtlas {
+
+    /**
+     * The index of the empty card in the atlas (after the deck).
+     */
+    private final int empty;
+    private final BufferedImage[] images;
+
+    CardAtlas(Config config) {
+        assert config.featureSize < 10; // otherwise there will be naming conflicts
+        empty = config.deckSize;
+        GraphicsConfiguration screen = GraphicsEnvironment.isHeadless() ? null
+                : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+
+        // every image is drawn into an image of its own, so the cards can be decoded and scaled concurrently
+        images = IntStream.rangeClosed(0, empty).parallel().mapToObj(card -> {
+            String filename = card == empty ? "cards/empty_card.png"
+                    : "cards/" + UserInterfaceSwing.intInBaseToPaddedString(card, config.featureCount, config.featureSize) + ".png";
+            BufferedImage loaded = loadImageResource(filename);
+            BufferedImage image = screen == null ? new BufferedImage(config.cellWidth, config.cellHeight, BufferedImage.TYPE_INT_ARGB_PRE)
+                    : screen.createCompatibleImage(config.cellWidth, config.cellHeight, Transparency.TRANSLUCENT);
+            Graphics2D g = image.createGraphics();
+            g.setComposite(AlphaComposite.Src);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(loaded, 0, 0, config.cellWidth, config.cellHeight, null);
+            g.dispose();
+            return image;
+        }).toArray(BufferedImage[]::new);
+    }
+
+    private BufferedImage loadImageResource(String filename) {
+        try (InputStream stream = getClass().getClassLoader().getResourceAsStream(filename)) {
+            if (stream == null)
+                throw new RuntimeException(new FileNotFoundException(filename));
+            return ImageIO.read(new MemoryCacheImageInputStream(stream)); // rather than ImageIO's default cache in a temporary file
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Draws a card with its top left corner at the given point.
+     *
+     * @param card - the card id, or -1 for the empty card.
+     */
+    void draw(Graphics g, int card, int x, int y) {
+        g.drawImage(images[card < 0 ? empty : card], x, y, null);
+    }
+}
@@ -7,6 +7,7 @@ import java.nio.file.InvalidPathException;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -56,6 +57,72 @@ public class Config {
      */
     public final boolean hints;
 
+    /**
+     * Whether the dealer, player and AI tasks run on virtual threads (or on platform threads)
+     */
+    public final boolean virtualThreads;
+
+    /**
+     * Whether each player runs as an event-driven task on the shared scheduler (rather than on its own threads)
+     */
+    public final boolean playerActors;
+
+    /**
+     * How computer players pace their key presses (Unpaced, Fixed, Poisson, LogNormal or Bursty)
+     */
+    public final String aiProfile;
+
+    /**
+     * The (mean) number of key presses per second of each paced computer player (a paced profile with no positive
+     * rate is unpaced)
+     */
+    public final double aiActionsPerSecond;
+
+    /**
+     * The standard deviation of the log of the reaction time, for the LogNormal profile
+     */
+    public final double aiReactionSigma;
+
+    /**
+     * The number of key presses in a burst, for the Bursty profile
+     */
+    public final int aiBurstSize;
+
+    /**
+     * The number of milliseconds between bursts, for the Bursty profile
+     */
+    public final long aiBurstPauseMillis;
+
+    /**
+     * How computer players choose their key presses (Random or Sets)
+     */
+    public final String aiStrategy;
+
+    /**
+     * The number of milliseconds a computer player using the Sets strategy thinks before placing its tokens
+     */
+    public final long aiThinkMillis;
+
+    /**
+     * The fraction (0 to 1) of the sets claimed by computer players using the Sets strategy that are deliberately wrong
+     */
+    public final double aiMistakeRate;
+
+    /**
+     * True iff computer players check their sets locally (with Util.testSet) and drop the invalid ones instead of claiming them
+     */
+    public final boolean aiPreValidate;
+
+    /**
+     * The fraction (0 to 1) of the local checks of computer players that give the wrong answer (AiPreValidate only)
+     */
+    public final double aiPreValidateErrorRate;
+
+    /**
+     * The seed of every random choice in the game: the dealer's shuffles, the order of the open slots and the AI players
+     */
+    public final long seed;
+
     /**
      * The number of milliseconds until the dealer reshuffles the deck (0 show timer since last action, -1 show nothing)
      */
@@ -86,6 +153,29 @@ public class Config {
      */
     public final long endGamePauseMillies;
 
+    /**
+     * The maximum number of milliseconds to wait for all the player threads to end when the game is terminated
+     */
+    public final long terminateTimeoutMillis;
+
+    /**
+     * The file to record the events of the game to, for replay (empty for no journal). The journal is written in
+     * segments named after the file, with .0, .1 etc. appended
+     */
+    public final String journalFile;
+
+    /**
+     * The size of every segment of the journal in bytes (a new segment is started when one fills up), at least enough
+     * for the largest record (the winners, if all the players won)
+     */
+    public final long journalSegmentBytes;
+
+    /**
+     * The file to save the state of the game to at the start of every round, to resume the game from with
+     * Main --resume (empty for no checkpoints)
+     */
+    public final String checkpointFile;
+
     /**
      * The names of the players to display on the screen
      * Note: if there are more players than names, the remaining players will be called "Player 3", "Player 4", etc.
@@ -132,6 +222,34 @@ public class Config {
      */
     public final int fontSize;
 
+    /**
+     * The number of times per second the user interface applies the game's updates, in one batch on the event dispatch
+     * thread (0 to apply every update right away, on the calling thread)
+     */
+    public final int uiFramesPerSecond;
+
+    /**
+     * True iff the game is played without a window (e.g. on a server): the user interface only counts its calls, and
+     * the calls are not logged (see HeadlessUserInterface)
+     */
+    public final boolean headless;
+
+    /**
+     * The port to serve the game to spectators on, on the loopback interface (-1 for no spectators, 0 for any free
+     * port; see SpectatorServer)
+     */
+    public final int spectatorPort;
+
+    /**
+     * The number of times per second the changes of the game are sent to the spectators, in one frame
+     */
+    public final int spectatorFramesPerSecond;
+
+    /**
+     * The number of bytes a spectator may fall behind before it is dropped
+     */
+    public final int spectatorBacklogBytes;
+
     /**
      * The scancodes of the keyboard input data for each player
      * Notes:
@@ -155,7 +273,7 @@ public class Config {
      * @param filename - the name of the configuration file.
      * @return - a properties object with the configuration file contents.
      */
-    private static Properties loadProperties(String filename, Logger logger) {
+    static Properties loadProperties(String filename, Logger logger) {
 
         Properties properties = new Properties();
 
@@ -204,12 +322,38 @@ public class Config {
         players = humanPlayers + computerPlayers;
 
         hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
+        virtualThreads = Boolean.parseBoolean(properties.getProperty("VirtualThreads", "True"));
+        playerActors = Boolean.parseBoolean(properties.getProperty("PlayerActors", "False"));
+        aiProfile = properties.getProperty("AiProfile", "Unpaced").trim();
+        aiActionsPerSecond = Double.parseDouble(properties.getProperty("AiActionsPerSecond", "10"));
+        if (!(aiActionsPerSecond > 0) && !aiProfile.equalsIgnoreCase("Unpaced"))
+            logger.severe("invalid AI actions per second: " + aiActionsPerSecond + ", computer players will be unpaced.");
+        aiReactionSigma = Double.parseDouble(properties.getProperty("AiReactionSigma", "0.5"));
+        aiBurstSize = Integer.parseInt(properties.getProperty("AiBurstSize", "5"));
+        aiBurstPauseMillis = (long) (Double.parseDouble(properties.getProperty("AiBurstPauseSeconds", "1")) * 1000.0);
+        aiStrategy = properties.getProperty("AiStrategy", "Random").trim();
+        aiThinkMillis = (long) (Double.parseDouble(properties.getProperty("AiThinkSeconds", "1")) * 1000.0);
+        aiMistakeRate = Double.parseDouble(properties.getProperty("AiMistakeRate", "0.1"));
+        aiPreValidate = Boolean.parseBoolean(properties.getProperty("AiPreValidate", "False"));
+        aiPreValidateErrorRate = Double.parseDouble(properties.getProperty("AiPreValidateErrorRate", "0"));
+        String seedProperty = properties.getProperty("Seed", "").trim();
+        seed = seedProperty.isEmpty() ? ThreadLocalRandom.current().nextLong() : Long.parseLong(seedProperty);
+        logger.info("random seed: " + seed);
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
         turnTimeoutWarningMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutWarningSeconds", "60")) * 1000.0);
         pointFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PointFreezeSeconds", "1")) * 1000.0);
         penaltyFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PenaltyFreezeSeconds", "3")) * 1000.0);
         tableDelayMillis = (long) (Double.parseDouble(properties.getProperty("TableDelaySeconds", "0.1")) * 1000.0);
         endGamePauseMillies = (long) (Double.parseDouble(properties.getProperty("EndGamePauseSeconds", "5")) * 1000.0);
+        terminateTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TerminateTimeoutSeconds", "2")) * 1000.0);
+        journalFile = properties.getProperty("JournalFile", "").trim();
+        long segmentBytes = (long) (Double.parseDouble(properties.getProperty("JournalSegmentMegabytes", "64")) * 1024 * 1024);
+        if (segmentBytes < Journal.minSegmentBytes(players)) {
+            logger.severe("invalid journal segment size: " + segmentBytes + " bytes (less than " + Journal.minSegmentBytes(players) + "), using 64 megabytes.");
+            segmentBytes = 64L * 1024 * 1024;
+        }
+        journalSegmentBytes = segmentBytes;
+        checkpointFile = properties.getProperty("CheckpointFile", "").trim();
 
         // ui settings
         String[] names = properties.getProperty("PlayerNames", "Player 1, Player 2").split(",");
@@ -224,19 +368,27 @@ public class Config {
         playerCellWidth = Integer.parseInt(properties.getProperty("PlayerCellWidth", "300"));
         playerCellHeight = Integer.parseInt(properties.getProperty("PlayerCellHeight", "40"));
         fontSize = Integer.parseInt(properties.getProperty("FontSize", "40"));
+        uiFramesPerSecond = Integer.parseInt(properties.getProperty("UiFramesPerSecond", "60"));
+        headless = Boolean.parseBoolean(properties.getProperty("Headless", "False"));
+        spectatorPort = Integer.parseInt(properties.getProperty("SpectatorPort", "-1"));
+        spectatorFramesPerSecond = Integer.parseInt(properties.getProperty("SpectatorFramesPerSecond", "10"));
+        spectatorBacklogBytes = (int) (Double.parseDouble(properties.getProperty("SpectatorBacklogKilobytes", "64")) * 1024);
 
         // keyboard input data
-        playerKeys = new int[players][rows * columns];
+        // only keys that were actually configured are stored, so large tables and many computer players stay cheap
+        playerKeys = new int[players][];
         for (int i = 0; i < players; i++) {
             String defaultCodes = "";
             if (i < 2) defaultCodes = playerKeysDefaults[i];
             String playerKeysString = properties.getProperty("PlayerKeys" + (i + 1), defaultCodes);
+            playerKeys[i] = new int[0];
             if (playerKeysString.length() > 0) {
                 String[] codes = playerKeysString.split(",");
                 if (codes.length != tableSize)
                     logger.severe("warning: player " + (i + 1) + " keys (" + codes.length + ") mismatch table size (" + tableSize + ").");
-                for (int j = 0; j < Math.min(codes.length, tableSize); ++j) // parse the key codes string
-                    playerKeys[i][j] = Integer.parseInt(codes[j]);
+                playerKeys[i] = new int[Math.min(codes.length, tableSize)];
+                for (int j = 0; j < playerKeys[i].length; ++j) // parse the key codes string
+                    playerKeys[i][j] = Integer.parseInt(codes[j].trim());
             }
         }
     }
@@ -8,11 +8,29 @@ public class Env {
     public final Config config;
     public final UserInterface ui;
     public final Util util;
+    public final GameExecutor executor;
+    public final RandomStreams random;
+
+    /**
+     * The journal the dealer records its events in (null for none).
+     */
+    public final Journal journal;
 
     public Env(Logger logger, Config config, UserInterface ui, Util util) {
+        this(logger, config, ui, util, new GameExecutor(config));
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, GameExecutor executor) {
+        this(logger, config, ui, util, executor, null);
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, GameExecutor executor, Journal journal) {
         this.logger = logger;
         this.config = config;
         this.ui = ui;
         this.util = util;
+        this.executor = executor;
+        this.random = new RandomStreams(config.seed);
+        this.journal = journal;
     }
 }
@@ -0,0 +1,105 @@
+package bguspl.set;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class starts the game's threads (dealer, players and AI), either as virtual threads or as platform threads.
+ * It also owns the shared scheduler that event-driven (actor) players run on, and that paces computer players' key
+ * presses. Only the actor players are bounded by the scheduler's threads: every dealer still has a thread of its own,
+ * and with PlayerActors=False so do every player and every computer player's AI.
+ */
+public class GameExecutor {
+
+    /**
+     * True iff the game's tasks run on virtual threads.
+     */
+    private final boolean virtual;
+
+    /**
+     * The shared scheduler, with a fixed number of (daemon) threads (one per available processor by default), started
+     * on first use.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    public GameExecutor(boolean virtual, int schedulerThreads) {
+        this.virtual = virtual;
+        AtomicInteger threads = new AtomicInteger();
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(schedulerThreads, task -> {
+            Thread thread = new Thread(task, "scheduler-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.setRemoveOnCancelPolicy(true);
+        scheduler = pool;
+    }
+
+    public GameExecutor(boolean virtual) {
+        this(virtual, Runtime.getRuntime().availableProcessors());
+    }
+
+    public GameExecutor(Config config) {
+        this(config.virtualThreads);
+    }
+
+    /**
+     * Starts a task on a new thread. Platform threads are daemons, so a thread that ignores the game's terminate
+     * timeout cannot keep the JVM alive.
+     *
+     * @param name - the name of the thread.
+     * @param task - the task to run.
+     * @return - the started thread.
+     */
+    public Thread start(String name, Runnable task) {
+        return virtual ? Thread.ofVirtual().name(name).start(task) : Thread.ofPlatform().name(name).daemon(true).start(task);
+    }
+
+    /**
+     * @return - true iff the game's tasks run on virtual threads.
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Runs a task on the shared scheduler as soon as one of its threads is free.
+     *
+     * @param task - the task to run.
+     * @return - false iff the task was dropped, because the executor was shut down.
+     */
+    public boolean execute(Runnable task) {
+        try {
+            scheduler.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Runs a task on the shared scheduler after a delay.
+     *
+     * @param task  - the task to run.
+     * @param delay - the delay.
+     * @param unit  - the unit of the delay.
+     * @return - false iff the task was dropped, because the executor was shut down.
+     */
+    public boolean schedule(Runnable task, long delay, TimeUnit unit) {
+        try {
+            scheduler.schedule(task, delay, unit);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Stops the shared scheduler. Tasks posted afterwards are dropped.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,190 @@
+package bguspl.set;
+
+import bguspl.set.ex.GameStats;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Hosts many independent games in one JVM. Every game has its own Env (config, user interface and random streams),
+ * while all of them share one Util (with its precomputed card tables) and one GameExecutor. With PlayerActors=True
+ * (recommended when hosting many games) the players of all the games run on the executor's bounded scheduler; every
+ * game's dealer still runs on a thread of its own. With PlayerActors=False every player (and every computer player's AI)
+ * has a thread too, so the number of threads grows with the number of games. Hosted games never print hints (Hints is
+ * always False), since every game's hints would need a thread of its own, and would all go to the same console.
+ */
+public class GameHost {
+
+    private final Logger logger;
+
+    /**
+     * The settings every game starts from.
+     */
+    private final Properties defaults;
+
+    /**
+     * Shared by all the games.
+     */
+    private final Config config;
+    private final Util util;
+    private final GameExecutor executor;
+
+    /**
+     * The hosted games (running and ended), by id.
+     */
+    private final Map<Integer, GameSession> games = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * Aggregate counters: the number of games that ended, and the claim counters of the removed games.
+     */
+    private final LongAdder ended = new LongAdder();
+    private final GameStats removed = new GameStats();
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * How long (beyond the players' terminate timeout) shutdown waits for the dealers to end.
+     */
+    private static final long DEALER_GRACE_MILLIS = 1000;
+
+    /**
+     * @param logger      - the logger shared by all the games.
+     * @param defaults    - the settings every game starts from.
+     * @param poolThreads - the number of threads of the shared scheduler.
+     */
+    public GameHost(Logger logger, Properties defaults, int poolThreads) {
+        this.logger = logger;
+        this.defaults = defaults;
+        config = new Config(logger, defaults);
+        util = new UtilImpl(config);
+        executor = new GameExecutor(config.virtualThreads, poolThreads);
+    }
+
+    /**
+     * Creates and starts a new game.
+     *
+     * @param overrides - settings of this game that differ from the host's defaults (may be empty). Hints is ignored.
+     * @return - the started game.
+     * @throws IllegalArgumentException - if the game's cards do not match the shared Util.
+     */
+    public GameSession start(Properties overrides) {
+        Properties properties = new Properties();
+        properties.putAll(defaults);
+        properties.putAll(overrides);
+        properties.put("Hints", "False");
+        Config gameConfig = new Config(logger, properties);
+        if (gameConfig.featureSize != config.featureSize || gameConfig.featureCount != config.featureCount)
+            throw new IllegalArgumentException("all the hosted games must use the same cards");
+
+        GameSession game = new GameSession(nextId.getAndIncrement(), new Env(logger, gameConfig, new HeadlessUserInterface(), util, executor),
+                session -> ended.increment());
+        games.put(game.id, game);
+        game.start();
+        return game;
+    }
+
+    /**
+     * @return - the game with the given id, or null if there is no such game.
+     */
+    public GameSession game(int id) {
+        return games.get(id);
+    }
+
+    /**
+     * @return - all the hosted games.
+     */
+    public Collection<GameSession> games() {
+        return games.values();
+    }
+
+    /**
+     * Stops a game (if it is running), and waits for it to end.
+     */
+    public void stop(int id) throws InterruptedException {
+        GameSession game = games.get(id);
+        if (game != null) game.stop();
+    }
+
+    /**
+     * Forgets a game that has ended (its counters stay in the aggregate metrics).
+     *
+     * @return - the removed game, or null if there is no such game or it is still running.
+     */
+    public GameSession remove(int id) {
+        GameSession game = games.get(id);
+        if (game == null || game.state() == GameSession.State.RUNNING || !games.remove(id, game)) return null;
+        removed.add(game.stats());
+        return game;
+    }
+
+    /**
+     * Stops all the games and the shared scheduler. All the games are told to stop at once, and then waited for
+     * together, up to TerminateTimeoutSeconds (plus a second for the dealers to wrap up) in total.
+     *
+     * @return - the number of games that did not end in time.
+     */
+    public int shutdown() throws InterruptedException {
+        List<Thread> stopping = new ArrayList<>();
+        for (GameSession game : games.values()) {
+            Thread thread = game.requestStop();
+            if (thread != null) stopping.add(thread);
+        }
+        long deadline = System.nanoTime() + (config.terminateTimeoutMillis + DEALER_GRACE_MILLIS) * 1_000_000L;
+        int stuck = 0;
+        for (Thread thread : stopping) {
+            if (!thread.join(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())))) stuck++;
+        }
+        if (stuck > 0) logger.warning(stuck + " games did not stop in time");
+        executor.shutdown();
+        return stuck;
+    }
+
+    /**
+     * @return - the number of running games.
+     */
+    public long running() {
+        return games.values().stream().filter(game -> game.state() == GameSession.State.RUNNING).count();
+    }
+
+    /**
+     * @return - the number of games that ended (finished or stopped).
+     */
+    public long ended() {
+        return ended.sum();
+    }
+
+    /**
+     * @return - the claim counters of all the games, running and ended.
+     */
+    public GameStats totals() {
+        GameStats totals = new GameStats();
+        totals.add(removed);
+        for (GameSession game : games.values())
+            totals.add(game.stats());
+        return totals;
+    }
+
+    /**
+     * @return - the number of seconds since the host was created.
+     */
+    public double elapsedSeconds() {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+
+    @Override
+    public String toString() {
+        GameStats totals = totals();
+        double seconds = elapsedSeconds();
+        return String.format("%.1fs: %d games running, %d ended (%.2f/s), %d claims (%.0f/s), %d points, %d penalties, %d reshuffles",
+                seconds, running(), ended(), ended() / seconds, totals.claims(), totals.claims() / seconds,
+                totals.points(), totals.penalties(), totals.reshuffles());
+    }
+}
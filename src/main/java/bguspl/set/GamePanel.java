@@ -0,0 +1,156 @@
+package bguspl.set;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The table grid of the Swing user interface: the card image of every slot, with the names of the players that placed
+ * tokens on it on top. Changing a card or a token repaints only the rectangle of its cell, and painting draws only the
+ * cells inside the clip, so a frame costs the cells that changed rather than the whole grid.
+ * The tokens are a bitmask of players per slot, painted over the cards: changing a token flips a bit, and the names of
+ * a cell are laid out again (at the cost of the tokens on it, not of the number of players) only when it is painted.
+ */
+class GamePanel extends JLayeredPane {
+
+    private final Config config;
+    private final CardAtlas cards;
+    private final int[][] grid; // the card in every cell (-1 if none)
+    private final long[] tokens; // per slot, a bitmask of the players that have placed tokens on it (playerWords longs each, flattened)
+    private final int playerWords; // the number of longs in a slot's player bitmask
+    private final String[][] names; // per slot, the lines of names painted on it (null if the tokens on it changed since)
+    private final Font font = UIManager.getFont("Label.font");
+
+    GamePanel(Config config) {
+
+        this.config = config;
+        setPreferredSize(new Dimension(config.columns * config.cellWidth, config.rows * config.cellHeight));
+
+        // load all pictures from png files, scaled to the cell size
+        cards = new CardAtlas(config);
+
+        // init the cards on the table grid as empty cards
+        grid = new int[config.rows][config.columns];
+        for (int[] row : grid)
+            Arrays.fill(row, -1);
+
+        playerWords = (config.players + 63) >>> 6;
+        tokens = new long[config.tableSize * playerWords];
+        names = new String[config.tableSize][];
+    }
+
+    void placeCard(int slot, int card) {
+        int row = slot / config.columns;
+        int column = slot % config.columns;
+        grid[row][column] = card;
+        repaintCell(row, column);
+    }
+
+    void removeCard(int slot) {
+        int row = slot / config.columns;
+        int column = slot % config.columns;
+        grid[row][column] = -1;
+        repaintCell(row, column);
+    }
+
+    /**
+     * Marks only the cell's rectangle as dirty (Swing merges the dirty rectangles of a frame into one clip).
+     * Changing a card does not change the layout, so there is nothing to validate.
+     */
+    private void repaintCell(int row, int column) {
+        repaint(column * config.cellWidth, row * config.cellHeight, config.cellWidth, config.cellHeight);
+    }
+
+    void placeToken(int player, int slot) {
+        tokens[slot * playerWords + (player >>> 6)] |= 1L << player;
+        tokensChanged(slot);
+    }
+
+    void removeTokens() {
+        Arrays.fill(tokens, 0);
+        Arrays.fill(names, null);
+        repaint();
+    }
+
+    void removeTokens(int slot) {
+        Arrays.fill(tokens, slot * playerWords, (slot + 1) * playerWords, 0);
+        tokensChanged(slot);
+    }
+
+    void removeToken(int player, int slot) {
+        tokens[slot * playerWords + (player >>> 6)] &= ~(1L << player);
+        tokensChanged(slot);
+    }
+
+    private void tokensChanged(int slot) {
+        names[slot] = null;
+        repaintCell(slot / config.columns, slot % config.columns);
+    }
+
+    /**
+     * Lays out the names of the players with tokens on a slot in lines that fit the cell, comma separated, as many lines
+     * as fit in the cell (the last one ends with an ellipsis if not all the names fit).
+     */
+    private String[] layoutNames(int slot, FontMetrics metrics) {
+        int width = config.cellWidth - 4;
+        int maxLines = Math.max(1, (config.cellHeight - 2) / metrics.getHeight());
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        for (int word = 0; word < playerWords; word++) {
+            for (long bits = tokens[slot * playerWords + word]; bits != 0; bits &= bits - 1) {
+                String name = config.playerNames[(word << 6) + Long.numberOfTrailingZeros(bits)];
+                if (line.length() > 0 && metrics.stringWidth(line + ", " + name) > width) {
+                    if (lines.size() == maxLines - 1) {
+                        lines.add(line.append(", \u2026").toString());
+                        return lines.toArray(new String[0]);
+                    }
+                    lines.add(line.append(',').toString());
+                    line.setLength(0);
+                } else if (line.length() > 0)
+                    line.append(", ");
+                line.append(name);
+            }
+        }
+        if (line.length() > 0)
+            lines.add(line.toString());
+        return lines.toArray(new String[0]);
+    }
+
+    @Override
+    public void paintComponent(Graphics g) {
+        // draw the card images of the cells inside the clip (the dirty cells)
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(getSize());
+        int firstRow = Math.max(0, clip.y / config.cellHeight);
+        int lastRow = Math.min(config.rows - 1, (clip.y + clip.height - 1) / config.cellHeight);
+        int firstColumn = Math.max(0, clip.x / config.cellWidth);
+        int lastColumn = Math.min(config.columns - 1, (clip.x + clip.width - 1) / config.cellWidth);
+        for (int row = firstRow; row <= lastRow; row++)
+            for (int column = firstColumn; column <= lastColumn; column++)
+                cards.draw(g, grid[row][column], (column * config.cellWidth), (row * config.cellHeight));
+
+        // draw the token overlay on top: the cell borders and the names of the players with tokens on the cells
+        Map<?, ?> hints = (Map<?, ?>) Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+        if (hints != null) ((Graphics2D) g).addRenderingHints(hints); // anti-aliased text, as in the labels
+        g.setColor(Color.black);
+        g.setFont(font);
+        FontMetrics metrics = g.getFontMetrics();
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int x = column * config.cellWidth, y = row * config.cellHeight;
+                g.drawRect(x, y, config.cellWidth - 1, config.cellHeight - 1);
+                int slot = row * config.columns + column;
+                if (names[slot] == null)
+                    names[slot] = layoutNames(slot, metrics);
+                int baseline = y + 1 + metrics.getAscent();
+                for (String line : names[slot]) {
+                    g.drawString(line, x + (config.cellWidth - metrics.stringWidth(line)) / 2, baseline);
+                    baseline += metrics.getHeight();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.GameStats;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * A single game (dealer, table and players) with its own environment, that can be started, stopped and queried.
+ * Several sessions can share a GameExecutor and a Util (see GameHost).
+ */
+public class GameSession {
+
+    /**
+     * The lifecycle states of a game.
+     */
+    public enum State {
+        CREATED, RUNNING, FINISHED, STOPPED
+    }
+
+    /**
+     * The id of the game.
+     */
+    public final int id;
+
+    /**
+     * The game environment object.
+     */
+    public final Env env;
+
+    /**
+     * Game entities.
+     */
+    private final Table table;
+    private final Dealer dealer;
+    private final Player[] players;
+    private Thread dealerThread;
+
+    private volatile State state = State.CREATED;
+    private volatile long startNanos;
+    private volatile long endNanos;
+
+    /**
+     * Called on the dealer's thread once the game has ended (either finished or stopped).
+     */
+    private final Consumer<GameSession> onEnd;
+
+    public GameSession(int id, Env env) {
+        this(id, env, session -> {});
+    }
+
+    GameSession(int id, Env env, Consumer<GameSession> onEnd) {
+        this.id = id;
+        this.env = env;
+        this.onEnd = onEnd;
+        players = new Player[env.config.players];
+        table = new Table(env);
+        dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
+    }
+
+    /**
+     * Starts the game's dealer (which starts the players).
+     */
+    public synchronized void start() {
+        if (state != State.CREATED) throw new IllegalStateException("game " + id + " was already started");
+        state = State.RUNNING;
+        startNanos = System.nanoTime();
+        dealerThread = env.executor.start("dealer-" + id, () -> {
+            try {
+                dealer.run();
+            } finally {
+                endNanos = System.nanoTime();
+                if (state == State.RUNNING) state = State.FINISHED;
+                onEnd.accept(this);
+            }
+        });
+    }
+
+    /**
+     * Stops the game (if it is running) and waits for its dealer to end.
+     */
+    public void stop() throws InterruptedException {
+        Thread thread = requestStop();
+        if (thread != null) thread.join();
+    }
+
+    /**
+     * Tells the game to stop (if it is running) without waiting for it to end (see awaitEnd), so that many games
+     * can be stopped together.
+     *
+     * @return - the game's dealer thread, or null if the game was not running.
+     */
+    Thread requestStop() {
+        Thread thread;
+        synchronized (this) {
+            if (state != State.RUNNING) return null;
+            state = State.STOPPED;
+            thread = dealerThread;
+        }
+        dealer.requestTermination();
+        return thread;
+    }
+
+    /**
+     * Waits for the game to end.
+     *
+     * @param millis - the maximum time to wait (0 to wait forever).
+     * @return - true iff the game has ended.
+     */
+    public boolean awaitEnd(long millis) throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            thread = dealerThread;
+        }
+        if (thread == null) return false;
+        thread.join(millis);
+        return !thread.isAlive();
+    }
+
+    public State state() {
+        return state;
+    }
+
+    /**
+     * @return - the scores of the players, by player id.
+     */
+    public int[] scores() {
+        return Arrays.stream(players).mapToInt(Player::score).toArray();
+    }
+
+    /**
+     * @return - the ids of the players with the highest score.
+     */
+    public int[] winners() {
+        int[] scores = scores();
+        int max = Arrays.stream(scores).max().orElse(0);
+        return IntStream.range(0, scores.length).filter(i -> scores[i] == max).toArray();
+    }
+
+    /**
+     * @return - the game's claim counters.
+     */
+    public GameStats stats() {
+        return dealer.stats();
+    }
+
+    /**
+     * @return - the number of seconds the game has been running (or ran, once it ended).
+     */
+    public double elapsedSeconds() {
+        if (startNanos == 0) return 0;
+        long end = endNanos;
+        return ((end == 0 ? System.nanoTime() : end) - startNanos) / 1e9;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("game %d: %s after %.1fs, scores %s, winners %s", id, state, elapsedSeconds(),
+                Arrays.toString(scores()), Arrays.toString(winners()));
+    }
+}
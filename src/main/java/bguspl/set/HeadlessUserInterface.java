@@ -0,0 +1,121 @@
+package bguspl.set;
+
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The user interface of a game that is not shown (Headless=True, simulations, hosted games, journal replays): draws
+ * nothing, and only counts the calls per method, so a benchmark can tell how many updates a game makes. Main does not
+ * put the UserInterfaceDecorator in front of it, so a headless game does not log or spin on the updates either.
+ * The counters can be updated by any number of game threads at once without contention, and read at any time.
+ */
+public class HeadlessUserInterface implements UserInterface {
+
+    /**
+     * The methods of the user interface, to read their counters with.
+     */
+    public enum Call {
+        PLACE_CARD, REMOVE_CARD, PLACE_TOKEN, REMOVE_TOKENS, REMOVE_SLOT_TOKENS, REMOVE_TOKEN,
+        COUNTDOWN, COUNTDOWN_DEADLINE, ELAPSED, FREEZE, SCORE, ANNOUNCE_WINNER, DISPOSE
+    }
+
+    private final LongAdder[] counts = new LongAdder[Call.values().length];
+
+    public HeadlessUserInterface() {
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = new LongAdder();
+    }
+
+    /**
+     * @return - the number of calls to the method so far.
+     */
+    public long count(Call call) {
+        return counts[call.ordinal()].sum();
+    }
+
+    /**
+     * @return - the number of calls to all the methods so far.
+     */
+    public long total() {
+        long total = 0;
+        for (LongAdder count : counts) total += count.sum();
+        return total;
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        counts[Call.PLACE_CARD.ordinal()].increment();
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        counts[Call.REMOVE_CARD.ordinal()].increment();
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        counts[Call.PLACE_TOKEN.ordinal()].increment();
+    }
+
+    @Override
+    public void removeTokens() {
+        counts[Call.REMOVE_TOKENS.ordinal()].increment();
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+        counts[Call.REMOVE_SLOT_TOKENS.ordinal()].increment();
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        counts[Call.REMOVE_TOKEN.ordinal()].increment();
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+        counts[Call.COUNTDOWN.ordinal()].increment();
+    }
+
+    @Override
+    public void setCountdownDeadline(long deadline, long warnMillis) {
+        counts[Call.COUNTDOWN_DEADLINE.ordinal()].increment();
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+        counts[Call.ELAPSED.ordinal()].increment();
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        counts[Call.FREEZE.ordinal()].increment();
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        counts[Call.SCORE.ordinal()].increment();
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        counts[Call.ANNOUNCE_WINNER.ordinal()].increment();
+    }
+
+    @Override
+    public void dispose() {
+        counts[Call.DISPOSE.ordinal()].increment();
+    }
+
+    /**
+     * @return - the total number of calls, and the number of calls per method that was called.
+     */
+    @Override
+    public String toString() {
+        StringJoiner calls = new StringJoiner(", ", total() + " calls: ", "");
+        for (Call call : Call.values())
+            if (count(call) > 0) calls.add(call.name().toLowerCase(Locale.ROOT) + " " + count(call));
+        return calls.toString();
+    }
+}
@@ -0,0 +1,290 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Records every event of a game in a compact binary journal, for post-mortem analysis and replay (see JournalReplayer).
+ * A pipeline stage in front of the user interface: every call is recorded, and passed on to the user interface.
+ * The dealer also records the claims, their verdicts and the reshuffles (through Env.journal).
+ * <p>
+ * The journal is written in segments of JournalSegmentMegabytes, named after JournalFile with .0, .1 etc. appended.
+ * Every segment starts with a header of HEADER_BYTES (MAGIC, VERSION, the rows, the columns and the number of players,
+ * and the wall clock time the journal was started in milliseconds), followed by records of RECORD_BYTES: the
+ * nanoseconds since the journal was started (long), the type of the event (int), and its two arguments (int, long).
+ * A record of type 0 (a record that was never written) ends a segment.
+ * <p>
+ * A segment is a memory-mapped file, so recording an event is a few plain stores into memory: a thread claims the
+ * next record with one atomic add, and writes the type last. When a segment fills up, the next one is mapped.
+ */
+public class Journal implements UserInterface {
+
+    static final int MAGIC = 0x5345544a; // "SETJ"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 24;
+
+    /**
+     * The types of the events, and their arguments (the int argument, then the long one; unused arguments are 0).
+     */
+    static final int PLACE_CARD = 1; // slot, card
+    static final int REMOVE_CARD = 2; // slot
+    static final int PLACE_TOKEN = 3; // slot, player
+    static final int REMOVE_TOKEN = 4; // slot, player
+    static final int REMOVE_TOKENS = 5; // slot
+    static final int REMOVE_ALL_TOKENS = 6;
+    static final int COUNTDOWN = 7; // 1 to warn (0 otherwise), milliseconds
+    static final int COUNTDOWN_DEADLINE = 8; // milliseconds of warning, nanoseconds to the deadline
+    static final int ELAPSED = 9; // 0, milliseconds
+    static final int FREEZE = 10; // player, milliseconds
+    static final int SCORE = 11; // player, score
+    static final int WINNERS = 12; // the number of winners (followed by a WINNER record per winner)
+    static final int WINNER = 13; // player
+    static final int CLAIM = 14; // player, the cards (up to 4, 16 bits each, every card plus 1, the first in the lowest bits)
+    static final int CLAIM_STALE = 15; // player
+    static final int CLAIM_VERIFIED = 16; // player, 1 if the cards are a set (0 otherwise)
+    static final int RESHUFFLE = 17; // the number of cards left in the deck
+
+    private final Logger logger;
+    private final UserInterface ui;
+    private final String file;
+    private final int segmentBytes;
+    private final int rows, columns, players;
+    private final long startNanos = System.nanoTime();
+    private final long startMillis = System.currentTimeMillis();
+
+    private volatile Segment segment;
+    private int segments; // the number of segments opened so far (guarded by this)
+    private volatile boolean closed;
+
+    private static final class Segment {
+
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final AtomicInteger next = new AtomicInteger(HEADER_BYTES); // the offset of the next record to claim
+
+        Segment(FileChannel channel, MappedByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * @param logger - the logger.
+     * @param config - the game settings (JournalFile, JournalSegmentMegabytes, and the size of the table).
+     * @param ui     - the user interface the calls are passed on to (null for none).
+     * @throws IOException - if the first segment cannot be created.
+     */
+    public Journal(Logger logger, Config config, UserInterface ui) throws IOException {
+        this.logger = logger;
+        this.ui = ui;
+        file = config.journalFile;
+        segmentBytes = (int) Math.max(minSegmentBytes(config.players), Math.min(config.journalSegmentBytes, Integer.MAX_VALUE / 2));
+        rows = config.rows;
+        columns = config.columns;
+        players = config.players;
+        segment = openSegment();
+    }
+
+    /**
+     * @return - the smallest segment the largest record fits in (the winners, if all the players won).
+     */
+    static long minSegmentBytes(int players) {
+        return HEADER_BYTES + (long) RECORD_BYTES * (players + 1);
+    }
+
+    /**
+     * @return - the file of the given segment of a journal.
+     */
+    static Path segmentFile(String file, int segment) {
+        return Path.of(file + "." + segment);
+    }
+
+    private Segment openSegment() throws IOException {
+        FileChannel channel = FileChannel.open(segmentFile(file, segments++),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, rows).putInt(12, columns).putInt(16, players).putLong(24, startMillis);
+        return new Segment(channel, buffer);
+    }
+
+    /**
+     * Starts the next segment, unless another thread already did.
+     *
+     * @return - false if the journal is closed (or the next segment cannot be created).
+     */
+    private synchronized boolean rotate(Segment full) {
+        if (closed) return false;
+        if (segment != full) return true;
+        try {
+            segment = openSegment();
+            full.channel.close(); // the mapping stays valid for the threads still writing into it
+            return true;
+        } catch (IOException e) {
+            logger.severe("cannot start journal segment " + segments + ", no more events will be recorded: " + e);
+            closed = true;
+            return false;
+        }
+    }
+
+    /**
+     * Records an event (followed by a WINNER record for every one of the winners, if not null).
+     */
+    private void record(int type, int a, long b, int[] winners) {
+        if (closed) return;
+        long time = System.nanoTime() - startNanos;
+        int bytes = winners == null ? RECORD_BYTES : RECORD_BYTES * (winners.length + 1);
+        if (bytes > segmentBytes - HEADER_BYTES) { //would not fit in any segment, and starting new ones would never end
+            logger.warning("journal record of " + bytes + " bytes does not fit in a segment, dropped");
+            return;
+        }
+        while (true) {
+            Segment current = segment;
+            int at = current.next.getAndAdd(bytes);
+            if (at <= segmentBytes - bytes) {
+                write(current.buffer, at, time, type, a, b);
+                if (winners != null)
+                    for (int i = 0; i < winners.length; i++)
+                        write(current.buffer, at + RECORD_BYTES * (i + 1), time, WINNER, winners[i], 0);
+                return;
+            }
+            if (!rotate(current)) return;
+        }
+    }
+
+    private static void write(MappedByteBuffer buffer, int at, long time, int type, int a, long b) {
+        buffer.putLong(at, time).putInt(at + 12, a).putLong(at + 16, b);
+        buffer.putInt(at + 8, type); // last, so a record is either complete or ends the segment
+    }
+
+    private void record(int type, int a, long b) {
+        record(type, a, b, null);
+    }
+
+    /**
+     * Records that the dealer took a player's claim to check it.
+     */
+    public void claimTaken(int player, int[] cards) {
+        long packed = 0;
+        for (int i = 0; i < Math.min(4, cards.length); i++)
+            packed |= (long) ((cards[i] + 1) & 0xffff) << (16 * i);
+        record(CLAIM, player, packed);
+    }
+
+    /**
+     * Records that a claim was dropped since some of its cards were no longer on the table.
+     */
+    public void claimStale(int player) {
+        record(CLAIM_STALE, player, 0);
+    }
+
+    /**
+     * Records the dealer's verdict on a claim.
+     */
+    public void claimVerified(int player, boolean set) {
+        record(CLAIM_VERIFIED, player, set ? 1 : 0);
+    }
+
+    /**
+     * Records that the dealer returned all the cards on the table to the deck.
+     */
+    public void reshuffled(int deckCount) {
+        record(RESHUFFLE, deckCount, 0);
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        record(PLACE_CARD, slot, card);
+        if (ui != null) ui.placeCard(card, slot);
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        record(REMOVE_CARD, slot, 0);
+        if (ui != null) ui.removeCard(slot);
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        record(PLACE_TOKEN, slot, player);
+        if (ui != null) ui.placeToken(player, slot);
+    }
+
+    @Override
+    public void removeTokens() {
+        record(REMOVE_ALL_TOKENS, 0, 0);
+        if (ui != null) ui.removeTokens();
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+        record(REMOVE_TOKENS, slot, 0);
+        if (ui != null) ui.removeTokens(slot);
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        record(REMOVE_TOKEN, slot, player);
+        if (ui != null) ui.removeToken(player, slot);
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+        record(COUNTDOWN, warn ? 1 : 0, millies);
+        if (ui != null) ui.setCountdown(millies, warn);
+    }
+
+    @Override
+    public void setCountdownDeadline(long deadline, long warnMillis) {
+        record(COUNTDOWN_DEADLINE, (int) warnMillis, deadline - System.nanoTime());
+        if (ui != null) ui.setCountdownDeadline(deadline, warnMillis);
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+        record(ELAPSED, 0, millies);
+        if (ui != null) ui.setElapsed(millies);
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        record(FREEZE, player, millies);
+        if (ui != null) ui.setFreeze(player, millies);
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        record(SCORE, player, score);
+        if (ui != null) ui.setScore(player, score);
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        record(WINNERS, players.length, 0, players);
+        if (ui != null) ui.announceWinner(players);
+    }
+
+    @Override
+    public void dispose() {
+        if (ui != null) ui.dispose();
+    }
+
+    /**
+     * Stops recording, and writes the last segment to the disk.
+     */
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        segment.buffer.force();
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            logger.warning("cannot close the journal: " + e);
+        }
+    }
+}
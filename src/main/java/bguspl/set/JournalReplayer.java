@@ -0,0 +1,162 @@
+package bguspl.set;
+
+import bguspl.set.ex.Player;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+import static bguspl.set.Journal.*;
+
+/**
+ * Feeds a journal (see Journal) back into a user interface, with the events as far apart as they were recorded, or
+ * a given number of times faster, or as fast as possible, to reproduce and profile a game offline.
+ * Also counts the claims, their verdicts and the reshuffles of the game.
+ * Run with: mvn compile && java -cp target/classes bguspl.set.JournalReplayer journal [speed] [Swing|None] [Key=Value ...]
+ * where journal is the JournalFile the game was played with, speed is 1 for the recorded pace (the default) or 0 for
+ * as fast as possible, Swing (the default) shows the game on the screen, and None only counts the events (for
+ * profiling). The settings of the screen are read from config.properties and can be overridden on the command line,
+ * except for the size of the table and the number of players, which are taken from the journal.
+ */
+public class JournalReplayer {
+
+    /**
+     * The size of the table and the number of players of the game.
+     */
+    public final int rows, columns, players;
+
+    private final List<Path> segments = new ArrayList<>();
+
+    private long events, claims, stale, points, penalties, reshuffles;
+
+    /**
+     * @param file - the JournalFile the game was played with.
+     * @throws IOException - if there is no journal there.
+     */
+    public JournalReplayer(String file) throws IOException {
+        for (int segment = 0; Files.exists(segmentFile(file, segment)); segment++)
+            segments.add(segmentFile(file, segment));
+        if (segments.isEmpty())
+            throw new IOException("no journal at " + segmentFile(file, 0));
+        MappedByteBuffer header = map(segments.get(0));
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+            throw new IOException(segments.get(0) + " is not a journal of version " + VERSION);
+        rows = header.getInt(8);
+        columns = header.getInt(12);
+        players = header.getInt(16);
+    }
+
+    private static MappedByteBuffer map(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Replays the journal into the user interface, on the calling thread.
+     *
+     * @param ui    - the user interface.
+     * @param speed - how many times faster than recorded to replay the events (0 for as fast as possible).
+     * @return - the number of events replayed.
+     */
+    public long replay(UserInterface ui, double speed) throws IOException {
+        events = claims = stale = points = penalties = reshuffles = 0;
+        long start = System.nanoTime();
+        for (Path path : segments) {
+            MappedByteBuffer segment = map(path);
+            for (int at = HEADER_BYTES; at <= segment.limit() - RECORD_BYTES; at += RECORD_BYTES) {
+                int type = segment.getInt(at + 8);
+                if (type == 0) break; // the end of the segment
+                long time = segment.getLong(at);
+                int a = segment.getInt(at + 12);
+                long b = segment.getLong(at + 16);
+                if (speed > 0) {
+                    long due = start + (long) (time / speed);
+                    for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime())
+                        LockSupport.parkNanos(wait);
+                }
+                if (type == WINNERS) {
+                    int[] winners = new int[a];
+                    for (int i = 0; i < a; i++)
+                        winners[i] = segment.getInt(at + RECORD_BYTES * (i + 1) + 12);
+                    at += RECORD_BYTES * a;
+                    ui.announceWinner(winners);
+                } else {
+                    replay(ui, type, a, b, speed);
+                }
+                events++;
+            }
+        }
+        return events;
+    }
+
+    private void replay(UserInterface ui, int type, int a, long b, double speed) {
+        switch (type) {
+            case PLACE_CARD: ui.placeCard((int) b, a); break;
+            case REMOVE_CARD: ui.removeCard(a); break;
+            case PLACE_TOKEN: ui.placeToken((int) b, a); break;
+            case REMOVE_TOKEN: ui.removeToken((int) b, a); break;
+            case REMOVE_TOKENS: ui.removeTokens(a); break;
+            case REMOVE_ALL_TOKENS: ui.removeTokens(); break;
+            case COUNTDOWN: ui.setCountdown(b, a != 0); break;
+            case COUNTDOWN_DEADLINE: ui.setCountdownDeadline(System.nanoTime() + (speed > 0 ? (long) (b / speed) : b), a); break;
+            case ELAPSED: ui.setElapsed(b); break;
+            case FREEZE: ui.setFreeze(a, b); break;
+            case SCORE: ui.setScore(a, (int) b); break;
+            case CLAIM: claims++; break;
+            case CLAIM_STALE: stale++; break;
+            case CLAIM_VERIFIED: if (b != 0) points++; else penalties++; break;
+            case RESHUFFLE: reshuffles++; break;
+            default: break; // an event of a later version
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d events: %d claims (%d stale), %d points, %d penalties, %d reshuffles",
+                events, claims, stale, points, penalties, reshuffles);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("usage: java -cp target/classes bguspl.set.JournalReplayer journal [speed] [Swing|None] [Key=Value ...]");
+            return;
+        }
+        Logger logger = Logger.getLogger("SetReplayLogger");
+        logger.setUseParentHandlers(false);
+        JournalReplayer replayer = new JournalReplayer(args[0]);
+        double speed = 1;
+        boolean swing = true;
+        Properties properties = Config.loadProperties("config.properties", logger);
+        for (int i = 1; i < args.length; i++) {
+            int split = args[i].indexOf('=');
+            if (split >= 0) properties.put(args[i].substring(0, split).trim(), args[i].substring(split + 1).trim());
+            else if (args[i].equalsIgnoreCase("Swing")) swing = true;
+            else if (args[i].equalsIgnoreCase("None")) swing = false;
+            else speed = Double.parseDouble(args[i]);
+        }
+        properties.put("Rows", Integer.toString(replayer.rows));
+        properties.put("Columns", Integer.toString(replayer.columns));
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(replayer.players));
+        Config config = new Config(logger, properties);
+
+        UserInterface ui = new HeadlessUserInterface();
+        if (swing) {
+            ui = new UserInterfaceSwing(logger, config, new Player[config.players]);
+            if (config.uiFramesPerSecond > 0) ui = UserInterfaceBatcher.start(logger, config, ui);
+        }
+        long start = System.nanoTime();
+        replayer.replay(ui, speed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s, replayed in %.3fs (%.0f events/s)%n", replayer, seconds, replayer.events / seconds);
+        if (!swing) ui.dispose(); // the window stays open until it is closed
+    }
+}
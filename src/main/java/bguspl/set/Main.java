@@ -1,12 +1,15 @@
 package bguspl.set;
 
+import bguspl.set.ex.Checkpoint;
 import bguspl.set.ex.Dealer;
 import bguspl.set.ex.Player;
 import bguspl.set.ex.Table;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
@@ -22,18 +25,35 @@ public class Main {
 
     private static boolean xButtonPressed = false;
     private static Logger logger;
+    private static Config config;
 
+    /**
+     * How long (beyond the players' terminate timeout) the X button waits for the game to wrap up.
+     */
+    private static final long EXIT_GRACE_MILLIS = 1000;
+
+    /**
+     * Called on the event dispatch thread when the game window is closed. Tells the game to end and waits for it,
+     * but never longer than TerminateTimeoutSeconds plus a second, after which the window closes (and the JVM exits) anyway.
+     */
     public static void xButtonPressed() throws InterruptedException {
         if (logger != null) logger.severe("exit button pressed");
         xButtonPressed = true;
-        if (dealer != null) dealer.terminate();
-        mainThread.join();
+        if (dealer != null) dealer.requestTermination(); //the dealer thread waits for the players, not the event dispatch thread
+        long timeoutMillis = (config != null ? config.terminateTimeoutMillis : 0) + EXIT_GRACE_MILLIS;
+        long start = System.nanoTime();
+        boolean ended = mainThread == null || mainThread.join(Duration.ofMillis(timeoutMillis)); //no game thread when replaying a journal
+        if (logger != null) {
+            if (ended) logger.severe("game ended " + (System.nanoTime() - start) / 1_000_000 + " ms after the exit button was pressed");
+            else logger.severe("game did not end within " + timeoutMillis + " ms of the exit button, exiting anyway");
+            for (Handler h : logger.getHandlers()) h.flush();
+        }
     }
 
     /**
      * The game's main function. Creates all data structures and initializes the threads.
      *
-     * @param args - unused.
+     * @param args - --resume and a checkpoint file (see CheckpointFile) to resume a saved game, or nothing for a new game.
      */
     public static void main(String[] args) {
 
@@ -42,36 +62,75 @@ public class Main {
         // create the game environment objects
         logger = initLogger();
         ThreadLogger.logStart(logger, Thread.currentThread().getName());
-        Config config = new Config(logger, "config.properties");
+        config = new Config(logger, "config.properties");
         Util util = new UtilImpl(config);
+        Checkpoint checkpoint = null;
+        if (args.length >= 2 && args[0].equals("--resume")) {
+            try {
+                checkpoint = Checkpoint.read(Path.of(args[1]));
+                checkpoint.check(config);
+            } catch (IOException e) {
+                logger.severe("cannot resume from " + args[1] + ", starting a new game: " + e.getMessage());
+                checkpoint = null;
+            }
+        }
 
         Player[] players = new Player[config.players];
         UserInterface ui = null;
-        try {
+        HeadlessUserInterface headless = null;
+        if (config.headless) {
+            ui = headless = new HeadlessUserInterface();
+            if (config.humanPlayers > 0)
+                logger.severe("warning: running headless with human players, who have no keyboard");
+        } else try {
             ui = new UserInterfaceSwing(logger, config, players);
+            if (config.uiFramesPerSecond > 0) ui = UserInterfaceBatcher.start(logger, config, ui); //the game threads never touch swing
         } catch (UnsupportedOperationException | IllegalArgumentException e) {
             logger.severe("error creating swing user interface: " + e.getMessage());
             logger.severe("will try to run without user interface");
             if (config.humanPlayers > 0)
                 logger.severe("warning: running with human players with no user interface");
         }
-        ui = new UserInterfaceDecorator(logger, util, ui);
+        SpectatorServer spectators = null;
+        if (config.spectatorPort >= 0) {
+            try {
+                spectators = SpectatorServer.start(logger, config, ui);
+                ui = spectators;
+            } catch (IOException e) {
+                logger.severe("cannot serve spectators on port " + config.spectatorPort + ", playing without them: " + e);
+            }
+        }
+        Journal journal = null;
+        if (!config.journalFile.isEmpty()) {
+            try {
+                journal = new Journal(logger, config, ui);
+                ui = journal;
+            } catch (IOException e) {
+                logger.severe("cannot create the journal " + config.journalFile + ", playing without it: " + e);
+            }
+        }
+        if (headless == null) ui = new UserInterfaceDecorator(logger, util, ui); //nothing is shown headless, so there is nothing to log or slow down
 
-        Env env = new Env(logger, config, ui, util);
+        Env env = new Env(logger, config, ui, util, new GameExecutor(config), journal);
 
         // create the game entities
         Table table = new Table(env);
         dealer = new Dealer(env, table, players);
         for (int i = 0; i < players.length; i++)
             players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
+        if (checkpoint != null) dealer.restore(checkpoint);
 
         // start the dealer thread
-        ThreadLogger dealerThread = new ThreadLogger(dealer, "dealer", logger);
-        dealerThread.startWithLog();
+        ThreadLogger.logStart(logger, "dealer");
+        Thread dealerThread = env.executor.start("dealer", dealer);
 
         try {
             // shutdown stuff
-            dealerThread.joinWithLog();
+            try {
+                dealerThread.join();
+            } finally {
+                ThreadLogger.logStop(logger, "dealer");
+            }
             if (!xButtonPressed && config.endGamePauseMillies > 0) Thread.sleep(config.endGamePauseMillies);
         } catch (InterruptedException ignored) {
         } finally {
@@ -79,6 +138,10 @@ public class Main {
             System.out.println("Thanks for playing... it was fun!");
             ThreadLogger.logStop(logger, Thread.currentThread().getName());
             if (!xButtonPressed) env.ui.dispose();
+            env.executor.shutdown();
+            if (journal != null) journal.close();
+            if (spectators != null) spectators.close();
+            if (headless != null) logger.info("user interface " + headless);
             for (Handler h : logger.getHandlers()) h.flush();
         }
     }
@@ -87,11 +150,12 @@ public class Main {
 
         //just to make our log file nicer :)
         SimpleDateFormat format = new SimpleDateFormat("M-d_HH-mm-ss");
-        FileHandler handler;
+        Handler handler;
         try {
             //noinspection ResultOfMethodCallIgnored
             new File("./logs/").mkdirs();
-            handler = new FileHandler("./logs/" + format.format(Calendar.getInstance().getTime()) + ".log");
+            //the game threads only hand the records over, a background thread formats and writes them
+            handler = AsyncLogHandler.start(Path.of("./logs/" + format.format(Calendar.getInstance().getTime()) + ".log"), AsyncLogHandler.DEFAULT_CAPACITY);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -111,7 +175,7 @@ public class Main {
             @Override
             public synchronized String format(LogRecord lr) {
                 return String.format(format, new Date(lr.getMillis()),
-                        lr.getLevel().getLocalizedName(), lr.getMessage()
+                        lr.getLevel().getLocalizedName(), formatMessage(lr) // fills in the parameters of parameterised records
                 );
             }
         }));
@@ -0,0 +1,53 @@
+package bguspl.set;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * The random sources of a game, all derived from a single seed (the Seed config key).
+ * Every consumer gets its own substream, keyed by its role rather than by creation order, so the cards the dealer
+ * deals do not depend on how many random numbers the players happen to draw, or on which thread starts first.
+ */
+public class RandomStreams {
+
+    private static final long DEALER = -1;
+    private static final long TABLE = -2;
+
+    /**
+     * The seed all the substreams are derived from.
+     */
+    public final long seed;
+
+    public RandomStreams(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Creates an independent generator for the given substream (see SplittableRandom for the seed mixing).
+     */
+    private Random stream(long key) {
+        return new Random(new SplittableRandom(seed ^ (key * 0x9E3779B97F4A7C15L)).nextLong());
+    }
+
+    /**
+     * @return - a new generator for shuffling the dealer's deck.
+     */
+    public Random dealer() {
+        return stream(DEALER);
+    }
+
+    /**
+     * @return - a new generator for the order in which open table slots are filled.
+     */
+    public Random table() {
+        return stream(TABLE);
+    }
+
+    /**
+     * @param player - the id of the player.
+     * @return - a new generator for the player's AI.
+     */
+    public Random player(int player) {
+        return stream(player);
+    }
+}
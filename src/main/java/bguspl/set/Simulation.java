@@ -0,0 +1,78 @@
+package bguspl.set;
+
+import bguspl.set.ex.GameStats;
+import bguspl.set.ex.LatencyHistogram;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Runs games back-to-back with computer players only and a headless user interface, and reports the throughput and
+ * the number of user interface updates.
+ * The settings are read from config.properties and can be overridden on the command line.
+ * Run with: mvn compile && java -cp target/classes bguspl.set.Simulation [games] [Key=Value ...]
+ * For example: java -cp target/classes bguspl.set.Simulation 100 ComputerPlayers=8 AiStrategy=Sets AiThinkSeconds=0
+ */
+public class Simulation {
+
+    private static final int DEFAULT_GAMES = 10;
+
+    public static void main(String[] args) throws InterruptedException {
+        Logger logger = Logger.getLogger("SetSimulationLogger");
+        logger.setUseParentHandlers(false);
+
+        Properties properties = Config.loadProperties("config.properties", logger);
+        properties.put("LogLevel", "OFF");
+        int games = DEFAULT_GAMES;
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (split < 0) games = Integer.parseInt(arg);
+            else properties.put(arg.substring(0, split).trim(), arg.substring(split + 1).trim());
+        }
+        if (Integer.parseInt(properties.getProperty("ComputerPlayers", "2")) == 0) properties.put("ComputerPlayers", "2");
+        properties.put("HumanPlayers", "0");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("EndGamePauseSeconds", "0");
+        properties.put("Hints", "False");
+
+        Config config = new Config(logger, properties);
+        long seed = config.seed; // game i is played with seed + i, so a run can be repeated game by game
+        Util util = new UtilImpl(config);
+        GameExecutor executor = new GameExecutor(config);
+        GameStats total = new GameStats();
+        LatencyHistogram gameLatency = new LatencyHistogram();
+        HeadlessUserInterface ui = new HeadlessUserInterface(); //shared by the games, to count their updates together
+
+        long start = System.nanoTime();
+        try {
+            for (int game = 0; game < games; game++) {
+                properties.put("Seed", Long.toString(seed + game));
+                Config gameConfig = new Config(logger, properties);
+                long gameStart = System.nanoTime();
+                GameSession session = new GameSession(game, new Env(logger, gameConfig, ui, util, executor));
+                session.start();
+                session.awaitEnd(0);
+                total.add(session.stats());
+                gameLatency.record(System.nanoTime() - gameStart);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d games with %d computer players in %.2fs: %.2f games/s (seed %d)%n", games, config.computerPlayers, seconds, games / seconds, seed);
+        System.out.printf("claims: %d (%.0f/s), shed by players: %d, verified: %d (%.0f/s), stale: %d%n",
+                total.claims(), total.claims() / seconds, total.shed(), total.verified(), total.verified() / seconds, total.stale());
+        System.out.printf("points: %d, penalties: %d, reshuffles: %d%n", total.points(), total.penalties(), total.reshuffles());
+        System.out.println("user interface: " + ui);
+        System.out.printf("dealer queue depth: avg %.2f, max %d%n", total.averageQueueDepth(), total.maxQueueDepth());
+        System.out.println("latency per stage:");
+        System.out.println("  claim queue: " + total.queueLatency);
+        System.out.println("  verify:      " + total.verifyLatency);
+        System.out.println("  deal:        " + total.dealLatency);
+        System.out.println("  reshuffle:   " + total.reshuffleLatency);
+        System.out.println("  shutdown:    " + total.shutdownLatency);
+        System.out.printf("  game:        n=%d p50=%.1fms p90=%.1fms p99=%.1fms%n", gameLatency.count(),
+                gameLatency.percentile(0.5) / 1e6, gameLatency.percentile(0.9) / 1e6, gameLatency.percentile(0.99) / 1e6);
+    }
+}
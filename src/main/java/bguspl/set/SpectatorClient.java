@@ -0,0 +1,138 @@
+package bguspl.set;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Arrays;
+
+import static bguspl.set.SpectatorServer.*;
+
+/**
+ * Watches a game served by a SpectatorServer: reads its frames and keeps the state of the game they describe.
+ * Run with: mvn compile && java -cp target/classes bguspl.set.SpectatorClient port [host]
+ * to print a line per frame, where port is the SpectatorPort of the game (and host is localhost by default).
+ */
+public class SpectatorClient implements AutoCloseable {
+
+    private final Socket socket;
+    private final DataInputStream in;
+
+    /**
+     * The state of the game, as of the last frame read (set by the first frame, the snapshot).
+     */
+    public int rows, columns, players;
+    public int[] cards; // per slot, the card in it (-1 if none)
+    public int[][] tokens; // per slot, the players with a token on it
+    public int[] scores; // per player
+    public long countdownMillis; // the milliseconds left when the countdown was received
+    public int countdownWarnMillis; // warn from this many milliseconds left
+    public boolean countdownRuns; // true iff the countdown runs by itself
+    public int[] winners; // null until the game ends
+
+    /**
+     * The tick of the last frame, and the number of frames and bytes read so far.
+     */
+    public int tick;
+    public long frames, bytes;
+
+    public SpectatorClient(String host, int port) throws IOException {
+        socket = new Socket(host, port);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    }
+
+    /**
+     * Reads the next frame, and applies it to the state (waits for it).
+     *
+     * @return - the kind of the frame (SNAPSHOT or DELTA).
+     * @throws IOException - if the server went away, or sent something else than a frame.
+     */
+    public byte readFrame() throws IOException {
+        int length = in.readInt();
+        byte kind = in.readByte();
+        tick = in.readInt();
+        if (kind == SNAPSHOT) {
+            rows = in.readShort();
+            columns = in.readShort();
+            players = in.readShort();
+            cards = new int[rows * columns];
+            tokens = new int[rows * columns][0];
+            scores = new int[players];
+            winners = null;
+        } else if (kind != DELTA || cards == null) {
+            throw new IOException("unexpected frame of kind " + kind);
+        }
+        for (int left = length - 5 - (kind == SNAPSHOT ? 6 : 0); left > 0; ) {
+            byte type = in.readByte();
+            switch (type) {
+                case CARD:
+                    cards[in.readShort()] = in.readShort();
+                    left -= 5;
+                    break;
+                case TOKENS: {
+                    int slot = in.readShort();
+                    int[] on = new int[in.readShort()];
+                    for (int i = 0; i < on.length; i++) on[i] = in.readShort();
+                    tokens[slot] = on;
+                    left -= 5 + 2 * on.length;
+                    break;
+                }
+                case SCORE:
+                    scores[in.readShort()] = in.readInt();
+                    left -= 7;
+                    break;
+                case COUNTDOWN:
+                    countdownMillis = in.readLong();
+                    countdownWarnMillis = in.readInt();
+                    countdownRuns = in.readByte() != 0;
+                    left -= 14;
+                    break;
+                case WINNERS: {
+                    int[] won = new int[in.readShort()];
+                    for (int i = 0; i < won.length; i++) won[i] = in.readShort();
+                    winners = won;
+                    left -= 3 + 2 * won.length;
+                    break;
+                }
+                default:
+                    throw new IOException("unknown record type " + type);
+            }
+        }
+        frames++;
+        bytes += 4 + length;
+        return kind;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    /**
+     * @return - the state of the game on one line.
+     */
+    @Override
+    public String toString() {
+        if (cards == null) return "no frame yet";
+        int onTable = (int) Arrays.stream(cards).filter(card -> card >= 0).count();
+        int placed = Arrays.stream(tokens).mapToInt(on -> on.length).sum();
+        return String.format("tick %d: %d cards, %d tokens, scores %s, countdown %.1fs%s", tick, onTable, placed,
+                Arrays.toString(scores), countdownMillis / 1000.0, winners == null ? "" : ", winners " + Arrays.toString(winners));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("usage: java -cp target/classes bguspl.set.SpectatorClient port [host]");
+            return;
+        }
+        int port = Integer.parseInt(args[0]);
+        String host = args.length > 1 ? args[1] : "localhost";
+        try (SpectatorClient client = new SpectatorClient(host, port)) {
+            while (client.winners == null) {
+                client.readFrame();
+                System.out.println(client);
+            }
+            System.out.printf("%d frames, %d bytes%n", client.frames, client.bytes);
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+
+/**
+ * Serves the game to spectators over TCP on the loopback interface (SpectatorPort), so a game can be watched without
+ * a window on the game host (see SpectatorClient). A pipeline stage in front of the user interface: every call is
+ * passed on to the user interface.
+ * <p>
+ * The game threads only record the latest state (the card and the tokens of every slot, the scores and the countdown)
+ * in lock-free arrays, as UserInterfaceBatcher does. A single background thread runs a non-blocking selector: it sends
+ * every new spectator a snapshot of the state, and once per tick (SpectatorFramesPerSecond) compares the state with
+ * what it sent last, and sends what changed to all the spectators in one delta frame. A token placed and removed
+ * within a tick is never sent. The frames are queued per spectator and written as fast as its connection takes them;
+ * a spectator that falls more than SpectatorBacklogKilobytes behind is dropped, so a slow spectator never holds up
+ * the game or the other spectators.
+ * <p>
+ * A frame is the number of bytes that follow (int), its kind (byte: SNAPSHOT or DELTA) and the tick (int). A snapshot
+ * continues with the rows, the columns and the number of players (shorts). Then come the records, each a type (byte)
+ * followed by its fields: CARD - the slot and the card (shorts, -1 for none); TOKENS - the slot and the number of
+ * players with a token on it (shorts), then the players (shorts); SCORE - the player (short) and the score (int);
+ * COUNTDOWN - the milliseconds left (long), the milliseconds left from which to warn (int), and 1 if the countdown runs
+ * by itself from now on or 0 if it stays until the next one (byte); WINNERS - the number of winners, then the winners
+ * (shorts). A snapshot holds every slot, every player, the countdown (if any) and the winners (if any); a delta only
+ * what changed. All numbers are big-endian.
+ */
+public class SpectatorServer implements UserInterface {
+
+    static final byte SNAPSHOT = 1, DELTA = 2; // the kinds of frames
+    static final byte CARD = 1, TOKENS = 2, SCORE = 3, COUNTDOWN = 4, WINNERS = 5; // the types of records
+
+    private final Logger logger;
+    private final UserInterface ui;
+    private final int rows, columns, players;
+    private final int playerWords; // the number of longs in a slot's player bitmask
+    private final long tickNanos;
+    private final int backlogBytes;
+
+    /**
+     * The latest state (written by the game threads).
+     */
+    private final AtomicIntegerArray cards; // per slot, the card in it (-1 if none)
+    private final AtomicLongArray tokens; // per slot, a bitmask of the players with a token on it (playerWords longs each)
+    private final AtomicIntegerArray scores; // per player
+    private volatile long countdownMillis, countdownDeadline; // the countdown shown, or the deadline it runs to (0 if none)
+    private volatile int countdownWarnMillis;
+    private final AtomicLong countdowns = new AtomicLong(); // the number of countdowns set so far
+    private volatile int[] winners;
+
+    /**
+     * The state sent to the spectators (used by the spectators thread only).
+     */
+    private final int[] sentCards;
+    private final long[] sentTokens;
+    private final int[] sentScores;
+    private long sentCountdowns;
+    private int[] sentWinners;
+    private int tick;
+    private ByteBuffer frame = ByteBuffer.allocate(1 << 12);
+
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private Thread thread; // started by start(), after construction
+    private volatile boolean closed;
+
+    /**
+     * Counters: the spectators connected now, the spectators dropped for falling behind, and the frames sent.
+     */
+    private volatile int spectators;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+
+    /**
+     * The frames waiting to be written to a spectator.
+     */
+    private static final class Spectator {
+
+        final SocketChannel channel;
+        final ArrayDeque<ByteBuffer> queue = new ArrayDeque<>();
+        long queuedBytes;
+
+        Spectator(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Listens on SpectatorPort, and starts serving the game to spectators on a background thread.
+     *
+     * @param logger - the logger.
+     * @param config - the game settings (SpectatorPort, SpectatorFramesPerSecond, SpectatorBacklogKilobytes, the
+     *               size of the table and the number of players).
+     * @param ui     - the user interface the calls are passed on to (null for none).
+     * @throws IOException - if the port cannot be listened on.
+     */
+    public static SpectatorServer start(Logger logger, Config config, UserInterface ui) throws IOException {
+        SpectatorServer spectatorServer = new SpectatorServer(logger, config, ui);
+        Thread thread = new Thread(spectatorServer::serve, "spectators");
+        thread.setDaemon(true);
+        spectatorServer.thread = thread;
+        thread.start();
+        logger.info("serving spectators on " + spectatorServer.server.getLocalAddress());
+        return spectatorServer;
+    }
+
+    private SpectatorServer(Logger logger, Config config, UserInterface ui) throws IOException {
+        this.logger = logger;
+        this.ui = ui;
+        rows = config.rows;
+        columns = config.columns;
+        players = config.players;
+        playerWords = (players + 63) >>> 6;
+        tickNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, config.spectatorFramesPerSecond);
+        backlogBytes = config.spectatorBacklogBytes;
+
+        cards = new AtomicIntegerArray(config.tableSize);
+        tokens = new AtomicLongArray(config.tableSize * playerWords);
+        scores = new AtomicIntegerArray(players);
+        sentCards = new int[config.tableSize];
+        sentTokens = new long[config.tableSize * playerWords];
+        sentScores = new int[players];
+        for (int slot = 0; slot < config.tableSize; slot++) {
+            cards.set(slot, -1);
+            sentCards[slot] = -1;
+        }
+
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), config.spectatorPort));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * @return - the port spectators connect to (the one chosen by the system if SpectatorPort is 0).
+     */
+    public int port() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * @return - the number of spectators dropped so far for falling behind.
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    private void serve() {
+        long nextTick = System.nanoTime() + tickNanos;
+        try {
+            while (!closed) {
+                long wait = TimeUnit.NANOSECONDS.toMillis(nextTick - System.nanoTime());
+                if (wait > 0) selector.select(wait);
+                else selector.selectNow();
+                for (Iterator<SelectionKey> keys = selector.selectedKeys().iterator(); keys.hasNext(); ) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) accept();
+                    else {
+                        if (key.isReadable()) read(key);
+                        if (key.isValid() && key.isWritable()) write(key, (Spectator) key.attachment());
+                    }
+                }
+                long now = System.nanoTime();
+                if (now - nextTick >= 0) {
+                    tick();
+                    nextTick = Math.max(nextTick + tickNanos, now); // skips the ticks that were missed
+                }
+            }
+            tick(); // the last changes (e.g. the winners), as far as the spectators' connections take them
+        } catch (IOException e) {
+            if (!closed) logger.severe("spectators server failed, no more spectators will be served: " + e);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, backlogBytes); // so a slow spectator is noticed early
+            Spectator spectator = new Spectator(channel);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ, spectator);
+            spectators++;
+            logger.info("spectator " + channel.getRemoteAddress() + " joined");
+            send(key, spectator, snapshot());
+        }
+    }
+
+    /**
+     * Spectators send nothing: reads only notice the ones that left.
+     */
+    private void read(SelectionKey key) {
+        ByteBuffer discard = ByteBuffer.allocate(256);
+        try {
+            int read;
+            while ((read = ((SocketChannel) key.channel()).read(discard)) > 0) discard.clear();
+            if (read < 0) drop(key, "left");
+        } catch (IOException e) {
+            drop(key, "left: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Queues a frame for a spectator, and writes as much as its connection takes.
+     */
+    private void send(SelectionKey key, Spectator spectator, ByteBuffer frame) {
+        spectator.queue.add(frame.duplicate());
+        spectator.queuedBytes += frame.remaining();
+        write(key, spectator);
+    }
+
+    private void write(SelectionKey key, Spectator spectator) {
+        try {
+            for (ByteBuffer buffer = spectator.queue.peek(); buffer != null; buffer = spectator.queue.peek()) {
+                spectator.queuedBytes -= spectator.channel.write(buffer);
+                if (buffer.hasRemaining()) break;
+                spectator.queue.poll();
+            }
+        } catch (IOException e) {
+            drop(key, "left: " + e.getMessage());
+            return;
+        }
+        if (spectator.queuedBytes > backlogBytes) {
+            drop(key, "fell " + spectator.queuedBytes + " bytes behind");
+            return;
+        }
+        key.interestOps(spectator.queue.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    private void drop(SelectionKey key, String reason) {
+        if (!key.isValid()) return;
+        key.cancel();
+        try {
+            logger.info("spectator " + ((SocketChannel) key.channel()).getRemoteAddress() + " " + reason);
+            key.channel().close();
+        } catch (IOException ignored) {}
+        spectators--;
+        if (!reason.startsWith("left")) dropped.incrementAndGet();
+    }
+
+    /**
+     * Sends what changed since the last tick to all the spectators (if anything changed).
+     */
+    private void tick() {
+        tick++;
+        begin(DELTA);
+        int header = frame.position();
+        appendChanges();
+        if (frame.position() == header) return; // nothing changed
+        ByteBuffer delta = end();
+        for (SelectionKey key : selector.keys())
+            if (key.isValid() && key.attachment() instanceof Spectator)
+                send(key, (Spectator) key.attachment(), delta);
+    }
+
+    /**
+     * @return - a frame of the whole state, as sent to the spectators so far.
+     */
+    private ByteBuffer snapshot() {
+        begin(SNAPSHOT);
+        frame.putShort((short) rows).putShort((short) columns).putShort((short) players);
+        for (int slot = 0; slot < sentCards.length; slot++) {
+            frame.put(CARD).putShort((short) slot).putShort((short) sentCards[slot]);
+            if (tokenCount(slot, sentTokens) > 0) appendTokens(slot, sentTokens); // the slots with no tokens are left out
+        }
+        for (int player = 0; player < players; player++)
+            frame.put(SCORE).putShort((short) player).putInt(sentScores[player]);
+        if (sentCountdowns > 0) appendCountdown();
+        if (sentWinners != null) appendWinners(sentWinners);
+        return end();
+    }
+
+    /**
+     * Appends a record for everything that changed since it was last sent, and marks it sent.
+     */
+    private void appendChanges() {
+        for (int slot = 0; slot < sentCards.length; slot++) {
+            int card = cards.get(slot);
+            if (card != sentCards[slot]) {
+                sentCards[slot] = card;
+                ensure(5);
+                frame.put(CARD).putShort((short) slot).putShort((short) card);
+            }
+            boolean changed = false;
+            for (int word = slot * playerWords; word < (slot + 1) * playerWords; word++) {
+                long bits = tokens.get(word);
+                changed |= bits != sentTokens[word];
+                sentTokens[word] = bits;
+            }
+            if (changed) appendTokens(slot, sentTokens);
+        }
+        for (int player = 0; player < players; player++) {
+            int score = scores.get(player);
+            if (score != sentScores[player]) {
+                sentScores[player] = score;
+                ensure(7);
+                frame.put(SCORE).putShort((short) player).putInt(score);
+            }
+        }
+        long set = countdowns.get();
+        if (set != sentCountdowns) {
+            sentCountdowns = set;
+            appendCountdown();
+        }
+        int[] current = winners;
+        if (current != sentWinners) {
+            sentWinners = current;
+            appendWinners(current);
+        }
+    }
+
+    private int tokenCount(int slot, long[] bitmasks) {
+        int count = 0;
+        for (int word = slot * playerWords; word < (slot + 1) * playerWords; word++)
+            count += Long.bitCount(bitmasks[word]);
+        return count;
+    }
+
+    private void appendTokens(int slot, long[] bitmasks) {
+        int count = tokenCount(slot, bitmasks);
+        ensure(5 + 2 * count);
+        frame.put(TOKENS).putShort((short) slot).putShort((short) count);
+        for (int word = 0; word < playerWords; word++)
+            for (long bits = bitmasks[slot * playerWords + word]; bits != 0; bits &= bits - 1)
+                frame.putShort((short) ((word << 6) + Long.numberOfTrailingZeros(bits)));
+    }
+
+    private void appendCountdown() {
+        long deadline = countdownDeadline;
+        ensure(14);
+        if (deadline != 0)
+            frame.put(COUNTDOWN).putLong(Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()))).putInt(countdownWarnMillis).put((byte) 1);
+        else
+            frame.put(COUNTDOWN).putLong(countdownMillis).putInt(countdownWarnMillis).put((byte) 0);
+    }
+
+    private void appendWinners(int[] winners) {
+        ensure(3 + 2 * winners.length);
+        frame.put(WINNERS).putShort((short) winners.length);
+        for (int winner : winners) frame.putShort((short) winner);
+    }
+
+    private void begin(byte kind) {
+        frame.clear();
+        ensure(9 + 6 + sentCards.length * 5 + players * 7); // a snapshot without tokens, or a delta of cards and scores
+        frame.putInt(0).put(kind).putInt(tick);
+    }
+
+    /**
+     * @return - the frame, ready to be written (shared by all the spectators it is sent to).
+     */
+    private ByteBuffer end() {
+        frame.putInt(0, frame.position() - 4);
+        frames.incrementAndGet();
+        return ByteBuffer.wrap(Arrays.copyOf(frame.array(), frame.position())).asReadOnlyBuffer();
+    }
+
+    /**
+     * Makes room in the frame for that many more bytes.
+     */
+    private void ensure(int bytes) {
+        if (frame.remaining() >= bytes) return;
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(frame.capacity() * 2, frame.position() + bytes));
+        frame.flip();
+        larger.put(frame);
+        frame = larger;
+    }
+
+    /**
+     * Stops serving, and disconnects all the spectators.
+     */
+    public void close() {
+        if (closed) return;
+        closed = true;
+        selector.wakeup();
+        try {
+            thread.join(1000);
+            for (SelectionKey key : selector.keys()) key.channel().close();
+            selector.close();
+        } catch (IOException e) {
+            logger.warning("cannot close the spectators server: " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        cards.set(slot, card);
+        if (ui != null) ui.placeCard(card, slot);
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        cards.set(slot, -1);
+        if (ui != null) ui.removeCard(slot);
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        long bit = 1L << player;
+        tokens.getAndAccumulate(slot * playerWords + (player >>> 6), bit, (bits, b) -> bits | b);
+        if (ui != null) ui.placeToken(player, slot);
+    }
+
+    @Override
+    public void removeTokens() {
+        for (int word = 0; word < tokens.length(); word++) tokens.set(word, 0);
+        if (ui != null) ui.removeTokens();
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+        for (int word = slot * playerWords; word < (slot + 1) * playerWords; word++) tokens.set(word, 0);
+        if (ui != null) ui.removeTokens(slot);
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        long bit = 1L << player;
+        tokens.getAndAccumulate(slot * playerWords + (player >>> 6), bit, (bits, b) -> bits & ~b);
+        if (ui != null) ui.removeToken(player, slot);
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+        countdownDeadline = 0;
+        countdownMillis = millies;
+        countdownWarnMillis = warn ? Integer.MAX_VALUE : -1;
+        countdowns.incrementAndGet();
+        if (ui != null) ui.setCountdown(millies, warn);
+    }
+
+    @Override
+    public void setCountdownDeadline(long deadline, long warnMillis) {
+        countdownWarnMillis = (int) Math.min(warnMillis, Integer.MAX_VALUE);
+        countdownDeadline = deadline;
+        countdowns.incrementAndGet();
+        if (ui != null) ui.setCountdownDeadline(deadline, warnMillis);
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+        if (ui != null) ui.setElapsed(millies);
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        if (ui != null) ui.setFreeze(player, millies);
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        scores.set(player, score);
+        if (ui != null) ui.setScore(player, score);
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        winners = players.clone();
+        if (ui != null) ui.announceWinner(players);
+    }
+
+    @Override
+    public void dispose() {
+        if (ui != null) ui.dispose();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d spectators, %d dropped for falling behind, %d frames sent", spectators, dropped(), frames.get());
+    }
+}
@@ -50,6 +50,14 @@ public interface UserInterface {
      */
     void setCountdown(long millies, boolean warn);
 
+    /**
+     * Count down to the specified deadline: the user interface updates the countdown by itself, whenever the time it
+     * shows changes (every second, or every 100 milliseconds when warning), until it reaches 0.
+     * @param deadline   - the deadline, in System.nanoTime() terms.
+     * @param warnMillis - the remaining time from which the timer will be painted in red and will display milliseconds.
+     */
+    void setCountdownDeadline(long deadline, long warnMillis);
+
     /**
      * Set the elapsed time to the specified number of milliseconds.
      * @param millies - the milliseconds to be shown.
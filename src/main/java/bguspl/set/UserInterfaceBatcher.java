@@ -0,0 +1,319 @@
+package bguspl.set;
+
+import javax.swing.Timer;
+import java.awt.EventQueue;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * A pipeline stage in front of a Swing user interface, so that the game threads never touch Swing.
+ * The game threads only record the latest requested state (the card and the tokens of every slot, the countdown, and
+ * the freeze and score of every player) in lock-free arrays, and mark what they changed. Once per frame
+ * (UiFramesPerSecond), the event dispatch thread applies everything that changed since the last frame in one batch.
+ * Redundant calls are coalesced: only the last countdown of a frame is shown, and a token placed and removed again
+ * within a frame is never drawn.
+ */
+public class UserInterfaceBatcher implements UserInterface {
+
+    private final Logger logger;
+    private final UserInterface ui;
+    private final int tableSize;
+    private final int players;
+    private final int playerWords; // the number of longs in a slot's player bitmask
+
+    /**
+     * The requested state (written by the game threads).
+     */
+    private final AtomicIntegerArray cards; // per slot, the card in it (-1 if none)
+    private final AtomicLongArray tokens; // per slot, a bitmask of the players with a token on it (playerWords longs each)
+    private final AtomicLong timer = new AtomicLong(); // the countdown or elapsed time, and how to show it (see applyTimer())
+    private final AtomicLong deadline = new AtomicLong(); // the countdown deadline (when the timer shows one)
+    private final AtomicLongArray freezes; // per player
+    private final AtomicIntegerArray scores; // per player
+    private final AtomicReference<int[]> winners = new AtomicReference<>();
+
+    /**
+     * What changed since the last frame, one bit per item: the card of every slot, the tokens of every slot,
+     * the freeze of every player, the score of every player, the timer and the winners (applied in this order).
+     */
+    private final AtomicLongArray dirty;
+    private final int tokensBit, freezeBit, scoreBit, timerBit, winnersBit;
+
+    /**
+     * The state shown by the user interface (used by the event dispatch thread only).
+     */
+    private final int[] shownCards;
+    private final long[] shownTokens;
+
+    private static final int COUNTDOWN = 0, WARN = 1, ELAPSED = 2, DEADLINE = 3; // how to show the timer
+
+    /**
+     * Counters: calls made by the game threads, calls made to the user interface, and frames that applied anything.
+     */
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final long startNanos = System.nanoTime();
+
+    private final int frameMillis;
+    private Timer frameTimer; // null until the frames are started
+
+    /**
+     * Creates a batcher, and starts applying its updates once per frame.
+     *
+     * @param logger - the logger.
+     * @param config - the game settings (the table size, the number of players and UiFramesPerSecond).
+     * @param ui     - the user interface the updates are applied to, on the event dispatch thread.
+     */
+    public static UserInterfaceBatcher start(Logger logger, Config config, UserInterface ui) {
+        UserInterfaceBatcher batcher = new UserInterfaceBatcher(logger, config, ui);
+        batcher.frameTimer = new Timer(batcher.frameMillis, event -> batcher.flush());
+        batcher.frameTimer.setCoalesce(true);
+        batcher.frameTimer.start();
+        return batcher;
+    }
+
+    /**
+     * Constructor for testing: the updates are applied only on calls to flush().
+     */
+    UserInterfaceBatcher(Logger logger, Config config, UserInterface ui) {
+        this.logger = logger;
+        this.ui = ui;
+        tableSize = config.tableSize;
+        players = config.players;
+        playerWords = (players + 63) >>> 6;
+        cards = new AtomicIntegerArray(tableSize);
+        for (int slot = 0; slot < tableSize; slot++)
+            cards.set(slot, -1);
+        tokens = new AtomicLongArray(tableSize * playerWords);
+        freezes = new AtomicLongArray(players);
+        scores = new AtomicIntegerArray(players);
+        tokensBit = tableSize;
+        freezeBit = tokensBit + tableSize;
+        scoreBit = freezeBit + players;
+        timerBit = scoreBit + players;
+        winnersBit = timerBit + 1;
+        dirty = new AtomicLongArray((winnersBit + 64) >>> 6);
+        shownCards = new int[tableSize];
+        Arrays.fill(shownCards, -1);
+        shownTokens = new long[tableSize * playerWords];
+
+        frameMillis = Math.max(1, 1000 / Math.max(1, config.uiFramesPerSecond));
+    }
+
+    private void changed(int bit) {
+        long mask = 1L << bit;
+        if ((dirty.get(bit >>> 6) & mask) == 0)
+            dirty.getAndAccumulate(bit >>> 6, mask, (bits, add) -> bits | add);
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        submitted.increment();
+        cards.set(slot, card);
+        changed(slot);
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        submitted.increment();
+        cards.set(slot, -1);
+        changed(slot);
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        submitted.increment();
+        tokens.getAndAccumulate(slot * playerWords + (player >>> 6), 1L << player, (bits, add) -> bits | add);
+        changed(tokensBit + slot);
+    }
+
+    @Override
+    public void removeTokens() {
+        submitted.increment();
+        for (int slot = 0; slot < tableSize; slot++)
+            clearTokens(slot);
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+        submitted.increment();
+        clearTokens(slot);
+    }
+
+    private void clearTokens(int slot) {
+        boolean had = false;
+        for (int word = 0; word < playerWords; word++)
+            had |= tokens.getAndSet(slot * playerWords + word, 0) != 0;
+        if (had) changed(tokensBit + slot);
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        submitted.increment();
+        tokens.getAndAccumulate(slot * playerWords + (player >>> 6), ~(1L << player), (bits, keep) -> bits & keep);
+        changed(tokensBit + slot);
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+        submitted.increment();
+        timer.set(millies << 2 | (warn ? WARN : COUNTDOWN));
+        changed(timerBit);
+    }
+
+    @Override
+    public void setCountdownDeadline(long deadline, long warnMillis) {
+        submitted.increment();
+        this.deadline.set(deadline); //before the timer, so a frame that sees the new mode sees the new deadline
+        timer.set(warnMillis << 2 | DEADLINE);
+        changed(timerBit);
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+        submitted.increment();
+        timer.set(millies << 2 | ELAPSED);
+        changed(timerBit);
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        submitted.increment();
+        freezes.set(player, millies);
+        changed(freezeBit + player);
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        submitted.increment();
+        scores.set(player, score);
+        changed(scoreBit + player);
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        submitted.increment();
+        winners.set(players.clone());
+        changed(winnersBit);
+    }
+
+    /**
+     * Applies the last frame's updates, stops the frames and disposes of the user interface (on the event dispatch thread).
+     */
+    @Override
+    public void dispose() {
+        EventQueue.invokeLater(() -> {
+            if (frameTimer != null) frameTimer.stop();
+            flush();
+            ui.dispose();
+            logger.info(toString());
+        });
+    }
+
+    /**
+     * Applies to the user interface everything that changed since the last frame. Called on the event dispatch thread.
+     */
+    void flush() {
+        boolean any = false;
+        for (int word = 0; word < dirty.length(); word++) {
+            if (dirty.get(word) == 0) continue;
+            for (long bits = dirty.getAndSet(word, 0); bits != 0; bits &= bits - 1) //cleared before reading the state, so later changes are marked again
+                apply((word << 6) + Long.numberOfTrailingZeros(bits));
+            any = true;
+        }
+        if (any) frames.increment();
+    }
+
+    private void apply(int bit) {
+        if (bit < tokensBit) applyCard(bit);
+        else if (bit < freezeBit) applyTokens(bit - tokensBit);
+        else if (bit < scoreBit) call(() -> ui.setFreeze(bit - freezeBit, freezes.get(bit - freezeBit)));
+        else if (bit < timerBit) call(() -> ui.setScore(bit - scoreBit, scores.get(bit - scoreBit)));
+        else if (bit == timerBit) applyTimer();
+        else call(() -> ui.announceWinner(winners.get()));
+    }
+
+    private void applyCard(int slot) {
+        int card = cards.get(slot);
+        if (card == shownCards[slot]) return;
+        shownCards[slot] = card;
+        if (card < 0) call(() -> ui.removeCard(slot));
+        else call(() -> ui.placeCard(card, slot));
+    }
+
+    private void applyTokens(int slot) {
+        int base = slot * playerWords;
+        boolean none = true, shown = false;
+        long[] requested = new long[playerWords];
+        for (int word = 0; word < playerWords; word++) {
+            requested[word] = tokens.get(base + word);
+            none &= requested[word] == 0;
+            shown |= shownTokens[base + word] != 0;
+        }
+        if (none && shown) { //one call rather than one per token
+            call(() -> ui.removeTokens(slot));
+            Arrays.fill(shownTokens, base, base + playerWords, 0);
+            return;
+        }
+        for (int word = 0; word < playerWords; word++) {
+            long before = shownTokens[base + word], after = requested[word];
+            for (long bits = before & ~after; bits != 0; bits &= bits - 1) {
+                int player = (word << 6) + Long.numberOfTrailingZeros(bits);
+                call(() -> ui.removeToken(player, slot));
+            }
+            for (long bits = after & ~before; bits != 0; bits &= bits - 1) {
+                int player = (word << 6) + Long.numberOfTrailingZeros(bits);
+                call(() -> ui.placeToken(player, slot));
+            }
+            shownTokens[base + word] = after;
+        }
+    }
+
+    private void applyTimer() {
+        long value = timer.get();
+        long millies = value >> 2;
+        int mode = (int) (value & 3);
+        if (mode == ELAPSED) call(() -> ui.setElapsed(millies));
+        else if (mode == DEADLINE) call(() -> ui.setCountdownDeadline(deadline.get(), millies));
+        else call(() -> ui.setCountdown(millies, mode == WARN));
+    }
+
+    private void call(Runnable update) {
+        update.run();
+        applied.increment();
+    }
+
+    /**
+     * @return - the number of calls made by the game threads.
+     */
+    public long submitted() {
+        return submitted.sum();
+    }
+
+    /**
+     * @return - the number of calls made to the user interface (after coalescing).
+     */
+    public long applied() {
+        return applied.sum();
+    }
+
+    /**
+     * @return - the number of frames that applied any update.
+     */
+    public long frames() {
+        return frames.sum();
+    }
+
+    @Override
+    public String toString() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return String.format("ui updates: %d submitted (%.0f/s), %d applied (%.0f/s) in %d frames (%.1f/s)",
+                submitted(), submitted() / seconds, applied(), applied() / seconds, frames(), frames() / seconds);
+    }
+}
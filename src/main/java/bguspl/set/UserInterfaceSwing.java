@@ -4,8 +4,6 @@ import bguspl.set.ex.Player;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.FileNotFoundException;
-import java.net.URL;
 import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Logger;
@@ -32,7 +30,7 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
 
         this.config = config;
         timerPanel = new TimerPanel();
-        gamePanel = new GamePanel();
+        gamePanel = new GamePanel(config);
         playersPanel = new PlayersPanel();
         winnerPanel = new WinnerPanel();
 
@@ -46,9 +44,9 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
 
         add(timerPanel, gbc);
         gbc.gridy++;
-        add(gamePanel, gbc);
+        add(fitToScreen(gamePanel, 2.0 / 3.0), gbc);
         gbc.gridy++;
-        add(playersPanel, gbc);
+        add(fitToScreen(playersPanel, 1.0 / 6.0), gbc);
         gbc.gridy++;
         add(winnerPanel, gbc);
         gbc.gridwidth = 1;
@@ -69,13 +67,39 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         EventQueue.invokeLater(() -> setVisible(true));
     }
 
+    /**
+     * Wraps a component in a scroll pane if it does not fit in the given fraction of the screen height (or in the
+     * screen width), e.g. for large table grids or many players.
+     */
+    private Component fitToScreen(JComponent component, double heightFraction) {
+        Rectangle screen = GraphicsEnvironment.getLocalGraphicsEnvironment().getMaximumWindowBounds();
+        Dimension size = component.getPreferredSize();
+        int maxWidth = screen.width - config.cellWidth / 4;
+        int maxHeight = (int) (screen.height * heightFraction);
+        if (size.width <= maxWidth && size.height <= maxHeight)
+            return component;
+
+        JScrollPane scrollPane = new JScrollPane(component);
+        scrollPane.setPreferredSize(new Dimension(Math.min(size.width, maxWidth), Math.min(size.height, maxHeight)));
+        scrollPane.getHorizontalScrollBar().setUnitIncrement(config.cellWidth / 4);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(config.cellHeight / 4);
+        return scrollPane;
+    }
+
     private class TimerPanel extends JPanel {
 
         private final JLabel timerField;
 
+        /**
+         * Shows the countdown to the deadline, once per change of the time shown (rather than on every call by the dealer).
+         */
+        private final Timer countdown = new Timer(0, event -> showCountdown());
+        private volatile long deadline;
+        private volatile long warnMillis;
+
         private String generateTime(long millies, boolean warn) {
             if (warn)
-                return format("Remaining Time: %.2f", (double) millies / 1000.0f);
+                return format("Remaining Time: %.1f", (millies / 100L) / 10.0);
             else
                 return format("Remaining Time: %d", millies / 1000L);
         }
@@ -88,127 +112,51 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
             timerField.setForeground(Color.BLACK);
 
             add(timerField);
+            countdown.setRepeats(false);
         }
 
         private void setCountdown(long millies, boolean warn) {
-            timerField.setText(generateTime(millies, warn));
-            timerField.setForeground(warn ? Color.RED : Color.BLACK);
+            countdown.stop();
+            showTime(millies, warn);
         }
 
-        private void setElapsed(long millies) {
-            timerField.setText("Elapsed time: " + millies / 1000);
+        private void setCountdownDeadline(long deadline, long warnMillis) {
+            this.warnMillis = warnMillis;
+            this.deadline = deadline;
+            SwingUtilities.invokeLater(this::showCountdown);
         }
-    }
-
-    private class GamePanel extends JLayeredPane {
 
-        private final Image emptyCard;
-        private final Image[] deck;
-        private final Image[][] grid;
-        private final boolean[][][] playerTokens;
-        private final JLabel[][] tokenText;
-
-        private Image loadImageResource(String filename) {
-            URL imageResource = getClass().getClassLoader().getResource(filename);
-            if (imageResource == null)
-                throw new RuntimeException(new FileNotFoundException(filename));
-            return new ImageIcon(imageResource).getImage();
-        }
-
-        private GamePanel() {
-
-            setPreferredSize(new Dimension(config.columns * config.cellWidth, config.rows * config.cellHeight));
-
-            // init deck and load all pictures from png files
-            assert config.featureSize < 10; // otherwise there will be naming conflicts
-
-            // load the image resources
-            deck = new Image[config.deckSize];
-            for (int i = 0; i < config.deckSize; ++i)
-                deck[i] = loadImageResource("cards/" + intInBaseToPaddedString(i, config.featureCount, config.featureSize) + ".png");
-            emptyCard = loadImageResource("cards/empty_card.png");
-
-            grid = new Image[config.rows][config.columns];
-            tokenText = new JLabel[config.rows][config.columns];
-            playerTokens = new boolean[config.players][config.rows][config.columns];
-            for (int row = 0; row < config.rows; row++) {
-                for (int column = 0; column < config.columns; column++) {
-                    // init the cards on the table grid as empty cards
-                    grid[row][column] = emptyCard;
-
-                    // init the JLabel selection overlay
-                    tokenText[row][column] = new JLabel("");
-                    tokenText[row][column].setVerticalAlignment(JLabel.TOP);
-                    tokenText[row][column].setHorizontalAlignment(JLabel.CENTER);
-                    tokenText[row][column].setOpaque(false);
-                    tokenText[row][column].setBorder(BorderFactory.createLineBorder(Color.black));
-                    tokenText[row][column].setBounds((column * config.cellWidth), (row * config.cellHeight), config.cellWidth, config.cellHeight);
-                    add(tokenText[row][column]);
-                }
+        /**
+         * Shows the time left to the deadline, and schedules the next call for when the time shown changes: the next
+         * whole second (or 100 milliseconds when warning), or the start of the warning.
+         */
+        private void showCountdown() {
+            long remaining = Math.max(0, (deadline - System.nanoTime()) / 1_000_000);
+            boolean warn = remaining <= warnMillis;
+            showTime(remaining, warn);
+            if (remaining == 0) {
+                countdown.stop();
+                return;
             }
+            long next = warn ? remaining % 100 + 1 : Math.min(remaining % 1000 + 1, remaining - warnMillis);
+            countdown.setInitialDelay((int) next);
+            countdown.restart();
         }
 
-        private void placeCard(int slot, int card) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            grid[row][column] = deck[card];
-            validate();
-            repaint();
-        }
-
-        private void removeCard(int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            grid[row][column] = emptyCard;
-            validate();
-            repaint();
-        }
-
-        private void placeToken(int player, int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            playerTokens[player][row][column] = true;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
-        }
-
-        private void removeTokens() {
-            for (int i = 0; i < config.tableSize; i++)
-                removeTokens(i);
-        }
-
-        private void removeTokens(int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            for (int player = 0; player < playerTokens.length; player++) {
-                playerTokens[player][row][column] = false;
-                tokenText[row][column].setText(generatePlayersTokenText(row, column));
-            }
-        }
-
-        private void removeToken(int player, int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            playerTokens[player][row][column] = false;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+        private void showTime(long millies, boolean warn) {
+            String text = generateTime(millies, warn);
+            if (!text.equals(timerField.getText()))
+                timerField.setText(text);
+            timerField.setForeground(warn ? Color.RED : Color.BLACK);
         }
 
-        private String generatePlayersTokenText(int row, int column) {
-            String text = "";
-            for (int player = 0; player < config.players; player++) {
-                if (playerTokens[player][row][column])
-                    text = text.concat(config.playerNames[player] + ", ");
-            }
-            if (text.length() < 2)
-                return "";
-            return text.substring(0, text.length() - 2);
+        private void setElapsed(long millies) {
+            countdown.stop();
+            timerField.setText("Elapsed time: " + millies / 1000);
         }
 
-        @Override
-        public void paintComponent(Graphics g) {
-            // draw card images
-            for (int row = 0; row < config.rows; row++)
-                for (int column = 0; column < config.columns; column++)
-                    g.drawImage(grid[row][column], (column * config.cellWidth), (row * config.cellHeight), this);
+        private void dispose() {
+            countdown.stop();
         }
     }
 
@@ -309,6 +257,11 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         timerPanel.setCountdown(millies, warn);
     }
 
+    @Override
+    public void setCountdownDeadline(long deadline, long warnMillis) {
+        timerPanel.setCountdownDeadline(deadline, warnMillis);
+    }
+
     @Override
     public void setElapsed(long millies) {
         timerPanel.setElapsed(millies);
@@ -333,6 +286,7 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
 
     @Override
     public void dispose() {
+        timerPanel.dispose();
         super.dispose();
     }
 }
@@ -1,6 +1,8 @@
 package bguspl.set;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * An interface for general utilities provided for convenience.
@@ -40,6 +42,17 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Finds and returns up to count sets in the given array of cards (like findSets, without boxing the cards).
+     *
+     * @param cards - an array of distinct card ids.
+     * @param count - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set.
+     */
+    default List<int[]> findSets(int[] cards, int count) {
+        return findSets(Arrays.stream(cards).boxed().collect(Collectors.toList()), count);
+    }
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
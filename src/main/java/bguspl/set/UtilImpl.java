@@ -1,5 +1,6 @@
 package bguspl.set;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
@@ -13,8 +14,24 @@ public class UtilImpl implements Util {
 
     private final Config config;
 
+    /**
+     * The features of every card in the deck, precomputed (features[card][feature]).
+     */
+    private final int[][] features;
+
+    /**
+     * The card id weight of each feature (i.e. featureSize ^ (featureCount - 1 - feature)).
+     */
+    private final int[] weights;
+
     public UtilImpl(Config config) {
         this.config = config;
+        features = new int[config.deckSize][config.featureCount];
+        for (int card = 0; card < features.length; card++)
+            cardToFeatures(card, features[card]);
+        weights = new int[config.featureCount];
+        for (int i = config.featureCount - 1, weight = 1; i >= 0; --i, weight *= config.featureSize)
+            weights[i] = weight;
     }
 
     private void cardToFeatures(int card, int[] features) {
@@ -90,6 +107,65 @@ public class UtilImpl implements Util {
         return sets;
     }
 
+    /**
+     * Returns the only card that forms a set with two given cards (for sets of 3 cards only): for every feature, if the
+     * two cards agree the third card agrees as well, otherwise it has the remaining value.
+     *
+     * @param first  - a card id.
+     * @param second - another card id.
+     * @return - the card id that completes the set.
+     */
+    public int thirdCard(int first, int second) {
+        int[] a = features[first], b = features[second];
+        int card = 0;
+        for (int i = 0; i < a.length; ++i)
+            card += ((6 - a[i] - b[i]) % 3) * weights[i];
+        return card;
+    }
+
+    /**
+     * For sets of 3 cards, finds the sets in O(n^2) by completing every pair of cards with its third card.
+     * Otherwise, falls back to the exhaustive search of findSets.
+     */
+    @Override
+    public List<int[]> findSets(int[] cards, int count) {
+        if (config.featureSize != 3) return Util.super.findSets(cards, count);
+        List<int[]> sets = new ArrayList<>();
+        int[] position = new int[config.deckSize]; // the position of each card in cards, plus one (0 if absent)
+        for (int i = 0; i < cards.length; ++i)
+            position[cards[i]] = i + 1;
+        for (int i = 0; i < cards.length; ++i)
+            for (int j = i + 1; j < cards.length; ++j) {
+                int third = thirdCard(cards[i], cards[j]);
+                if (position[third] > j + 1) { // report every set once, from its first two cards
+                    int[] set = {cards[i], cards[j], third};
+                    Arrays.sort(set);
+                    sets.add(set);
+                    if (sets.size() >= count) return sets;
+                }
+            }
+        return sets;
+    }
+
+    /**
+     * Counts the sets among the first length cards of an array, without collecting them (see findSets).
+     *
+     * @param cards  - an array of card ids, distinct among its first length entries.
+     * @param length - the number of cards to look at.
+     * @return - the number of sets.
+     */
+    public int countSets(int[] cards, int length) {
+        if (config.featureSize != 3) return findSets(Arrays.copyOf(cards, length), Integer.MAX_VALUE).size();
+        int sets = 0;
+        int[] position = new int[config.deckSize]; // the position of each card in cards, plus one (0 if absent)
+        for (int i = 0; i < length; ++i)
+            position[cards[i]] = i + 1;
+        for (int i = 0; i < length; ++i)
+            for (int j = i + 1; j < length; ++j)
+                if (position[thirdCard(cards[i], cards[j])] > j + 1) ++sets;
+        return sets;
+    }
+
     public void spin() {
         if (config.randomSpinMax <= 0) return;
         long cycles = ThreadLocalRandom.current().nextLong(config.randomSpinMin, config.randomSpinMax);
@@ -0,0 +1,78 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * This class decides when a computer player presses its next key (see the AiProfile config key).
+ * Each computer player has its own instance, since bursty profiles keep track of the current burst.
+ */
+public class AiProfile {
+
+    /**
+     * The supported load profiles.
+     */
+    public enum Kind {
+        UNPACED,   // key presses as fast as possible (the original behaviour)
+        FIXED,     // a key press every 1 / aiActionsPerSecond seconds
+        POISSON,   // exponentially distributed delays, with a mean of 1 / aiActionsPerSecond seconds
+        LOGNORMAL, // log-normally distributed reaction times, with a mean of 1 / aiActionsPerSecond seconds
+        BURSTY     // bursts of aiBurstSize presses at aiActionsPerSecond, separated by aiBurstPauseMillis pauses
+    }
+
+    public final Kind kind;
+    private final long meanNanos;
+    private final double mu; // the log-normal location, so that its mean is meanNanos
+    private final double sigma;
+    private final int burstSize;
+    private final long burstPauseNanos;
+    private int burstLeft; // the key presses left in the current burst
+
+    /**
+     * @param actionsPerSecond - the mean rate of key presses; a paced kind with no positive rate is unpaced (it would
+     *                         otherwise press keys with no delay on the shared scheduler, starving it).
+     */
+    public AiProfile(Kind kind, double actionsPerSecond, double sigma, int burstSize, long burstPauseMillis) {
+        this.kind = actionsPerSecond > 0 ? kind : Kind.UNPACED;
+        this.meanNanos = actionsPerSecond > 0 ? (long) (1_000_000_000L / actionsPerSecond) : 0;
+        this.sigma = sigma;
+        this.mu = Math.log(Math.max(meanNanos, 1)) - sigma * sigma / 2;
+        this.burstSize = Math.max(burstSize, 1);
+        this.burstPauseNanos = burstPauseMillis * 1_000_000L;
+        this.burstLeft = this.burstSize;
+    }
+
+    public AiProfile(Config config) {
+        this(Kind.valueOf(config.aiProfile.toUpperCase(Locale.ROOT)), config.aiActionsPerSecond, config.aiReactionSigma, config.aiBurstSize, config.aiBurstPauseMillis);
+    }
+
+    /**
+     * @return - true iff key presses are paced on the shared scheduler (false for the unpaced AI loop).
+     */
+    public boolean paced() {
+        return kind != Kind.UNPACED;
+    }
+
+    /**
+     * @param random - the random number generator of the computer player.
+     * @return - the delay in nanoseconds until the next key press.
+     */
+    public long nextDelayNanos(Random random) {
+        switch (kind) {
+            case FIXED:
+                return meanNanos;
+            case POISSON:
+                return (long) (-Math.log(1 - random.nextDouble()) * meanNanos);
+            case LOGNORMAL:
+                return (long) Math.exp(mu + sigma * random.nextGaussian());
+            case BURSTY:
+                if (--burstLeft > 0) return meanNanos;
+                burstLeft = burstSize;
+                return burstPauseNanos;
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * This class decides which key a computer player presses next (see the AiStrategy config key).
+ * The Random strategy presses random slots. The Sets strategy looks at the table, thinks for a while, and then
+ * places its tokens on a legal set (or, once in a while, on a deliberately wrong one).
+ */
+public class AiStrategy {
+
+    /**
+     * The supported strategies.
+     */
+    public enum Kind {
+        RANDOM, // press random slots
+        SETS    // place tokens on real sets, after a think time and with some deliberate mistakes
+    }
+
+    private final Env env;
+    private final Table table;
+    private final int player;
+    private final Random random;
+    private final Kind kind;
+
+    /**
+     * The key presses left to carry out the current plan (Sets strategy only).
+     */
+    private final int[] presses;
+    private int pressCount;
+    private int nextPress;
+
+    /**
+     * When the player is done thinking and may start pressing keys (Sets strategy only).
+     */
+    private long readyNanos = Long.MIN_VALUE;
+
+    public AiStrategy(Env env, Table table, int player, Random random) {
+        this.env = env;
+        this.table = table;
+        this.player = player;
+        this.random = random;
+        this.kind = Kind.valueOf(env.config.aiStrategy.toUpperCase(Locale.ROOT));
+        this.presses = new int[2 * env.config.featureSize];
+    }
+
+    /**
+     * @param idle - true iff the player can act (it is not frozen, waiting for a verdict or processing key presses).
+     * @return - the slot to press next, or -1 if the player should not press anything now.
+     */
+    public int nextSlot(boolean idle) {
+        if (kind == Kind.RANDOM)
+            return random.nextInt(env.config.tableSize);
+
+        if (nextPress < pressCount)
+            return presses[nextPress++];
+        long now = System.nanoTime();
+        if (!idle) {
+            readyNanos = Long.MIN_VALUE; // think again once the player can act
+            return -1;
+        }
+        if (readyNanos == Long.MIN_VALUE) {
+            readyNanos = now + env.config.aiThinkMillis * 1_000_000L;
+            return -1;
+        }
+        if (now < readyNanos)
+            return -1;
+        readyNanos = Long.MIN_VALUE;
+        plan();
+        return nextPress < pressCount ? presses[nextPress++] : -1;
+    }
+
+    /**
+     * Chooses a set on the table and computes the key presses that move the player's tokens onto it.
+     */
+    private void plan() {
+        nextPress = pressCount = 0;
+        TableSnapshot view = table.snapshot();
+        int[] cards = view.cards();
+        List<int[]> sets = env.util.findSets(cards, Integer.MAX_VALUE);
+        if (sets.isEmpty()) return;
+
+        int[] slotOf = new int[env.config.deckSize];
+        for (int slot = 0; slot < view.tableSize(); slot++)
+            if (view.card(slot) != -1) slotOf[view.card(slot)] = slot;
+        int[] target = sets.get(random.nextInt(sets.size())).clone();
+        for (int i = 0; i < target.length; i++)
+            target[i] = slotOf[target[i]];
+        if (random.nextDouble() < env.config.aiMistakeRate && cards.length > target.length)
+            mistake(target, cards, slotOf);
+
+        int[] tokens = table.tokenSlots(player);
+        for (int slot : tokens) // first remove the tokens that are not on the target
+            if (!contains(target, slot)) presses[pressCount++] = slot;
+        for (int slot : target) // then place the missing ones
+            if (!contains(tokens, slot)) presses[pressCount++] = slot;
+        if (pressCount == 0) { // the tokens are already on the target but no claim was made (e.g. it was dropped)
+            presses[pressCount++] = target[0];
+            presses[pressCount++] = target[0];
+        }
+    }
+
+    /**
+     * Replaces a random slot of the target with a random slot outside of it.
+     */
+    private void mistake(int[] target, int[] cards, int[] slotOf) {
+        int slot;
+        do {
+            slot = slotOf[cards[random.nextInt(cards.length)]];
+        } while (contains(target, slot));
+        target[random.nextInt(target.length)] = slot;
+    }
+
+    private static boolean contains(int[] slots, int slot) {
+        for (int s : slots)
+            if (s == slot) return true;
+        return false;
+    }
+}
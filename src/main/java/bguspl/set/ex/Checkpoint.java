@@ -0,0 +1,145 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * The state of a game at the start of a round, to resume the game from (see Main --resume).
+ * Taken by the dealer right after it dealt the cards of a round (CheckpointFile): the cards left in the deck in the
+ * order they will be dealt, the card in every slot of the table, and the scores. The tokens, the freezes, the claims
+ * in flight and the state of the random generators are not kept (a token placed in the moment after the deal could
+ * otherwise come back as a full set of tokens with no claim to answer it), so a resumed game starts the round with
+ * no tokens and a fresh countdown, and continues with new (seeded) shuffles.
+ * <p>
+ * The file is a few hundred bytes of ints: MAGIC, VERSION, the size of the table, the number of players and the size
+ * of the deck, then the number of cards left in the deck and the cards, the card in every slot of the table (-1 for
+ * none), and the score of every player.
+ */
+public final class Checkpoint {
+
+    static final int MAGIC = 0x53455443; // "SETC"
+    static final int VERSION = 2;
+    private static final int HEADER_BYTES = 20;
+
+    /**
+     * The cards left in the deck, the last one to be dealt first (as the dealer takes them).
+     */
+    final int[] deck;
+
+    /**
+     * The card in every slot of the table (-1 if none).
+     */
+    final int[] slots;
+
+    /**
+     * The score of every player.
+     */
+    final int[] scores;
+
+    final int deckSize;
+
+    Checkpoint(int deckSize, int[] deck, int[] slots, int[] scores) {
+        this.deckSize = deckSize;
+        this.deck = deck;
+        this.slots = slots;
+        this.scores = scores;
+    }
+
+    /**
+     * @return - the checkpoint as it is written to a file.
+     */
+    byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 4 * (1 + deck.length + slots.length + scores.length));
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(slots.length).putInt(scores.length).putInt(deckSize);
+        buffer.putInt(deck.length);
+        for (int card : deck) buffer.putInt(card);
+        for (int card : slots) buffer.putInt(card);
+        for (int score : scores) buffer.putInt(score);
+        return buffer.array();
+    }
+
+    /**
+     * @param bytes - a checkpoint as it is written to a file.
+     * @throws IOException - if the bytes are not a checkpoint of this version.
+     */
+    static Checkpoint decode(byte[] bytes) throws IOException {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                throw new IOException("not a checkpoint of version " + VERSION);
+            int tableSize = buffer.getInt();
+            int players = buffer.getInt();
+            int deckSize = buffer.getInt();
+            int[] deck = ints(buffer, buffer.getInt());
+            int[] slots = ints(buffer, tableSize);
+            int[] scores = ints(buffer, players);
+            return new Checkpoint(deckSize, deck, slots, scores);
+        } catch (RuntimeException e) { // a truncated file
+            throw new IOException("corrupt checkpoint: " + e, e);
+        }
+    }
+
+    /**
+     * @return - the next count ints of the buffer.
+     * @throws IOException - if the buffer does not have that many.
+     */
+    private static int[] ints(ByteBuffer buffer, int count) throws IOException {
+        if (count < 0 || count > buffer.remaining() / 4)
+            throw new IOException("corrupt checkpoint: " + count + " values, in " + buffer.remaining() + " bytes");
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) values[i] = buffer.getInt();
+        return values;
+    }
+
+    /**
+     * Writes the checkpoint to a file: to a temporary file next to it first, which then replaces the file, so the file
+     * always holds a whole checkpoint (the last one written) even if the game is killed while writing.
+     */
+    public void write(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, encode());
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @throws IOException - if there is no checkpoint in the file.
+     */
+    public static Checkpoint read(Path file) throws IOException {
+        return decode(Files.readAllBytes(file));
+    }
+
+    /**
+     * Checks that the checkpoint is of a game with the same table, players and deck as configured, and that every card
+     * of the deck is in the deck or on the table at most once.
+     *
+     * @throws IOException - if it is not.
+     */
+    public void check(Config config) throws IOException {
+        if (slots.length != config.tableSize || scores.length != config.players || deckSize != config.deckSize)
+            throw new IOException(String.format("the checkpoint is of a game of %d slots, %d players and %d cards, not %d, %d and %d",
+                    slots.length, scores.length, deckSize, config.tableSize, config.players, config.deckSize));
+        boolean[] seen = new boolean[deckSize];
+        for (int card : deck) checkCard(card, seen);
+        for (int card : slots) if (card != -1) checkCard(card, seen);
+        for (int player = 0; player < scores.length; player++)
+            if (scores[player] < 0) throw new IOException("player " + player + " has a negative score " + scores[player]);
+    }
+
+    private void checkCard(int card, boolean[] seen) throws IOException {
+        if (card < 0 || card >= deckSize) throw new IOException("card " + card + " is not in a deck of " + deckSize);
+        if (seen[card]) throw new IOException("card " + card + " is in the checkpoint twice");
+        seen[card] = true;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d cards in the deck, %d on the table, scores %s",
+                deck.length, slots.length - (int) Arrays.stream(slots).filter(card -> card < 0).count(), Arrays.toString(scores));
+    }
+}
@@ -0,0 +1,39 @@
+package bguspl.set.ex;
+
+/**
+ * A player's claim that the cards under its tokens form a legal set.
+ */
+public final class Claim {
+
+    /**
+     * The id of the claiming player.
+     */
+    public final int player;
+
+    /**
+     * The slots the player placed its tokens on.
+     */
+    final int[] slots;
+
+    /**
+     * The cards in these slots, as seen by the player.
+     */
+    final int[] cards;
+
+    /**
+     * The table version the claim was made against.
+     */
+    public final long version;
+
+    /**
+     * When the claim was made (System.nanoTime).
+     */
+    final long createdNanos = System.nanoTime();
+
+    Claim(int player, int[] slots, int[] cards, long version) {
+        this.player = player;
+        this.slots = slots;
+        this.cards = cards;
+        this.version = version;
+    }
+}
@@ -3,13 +3,14 @@ package bguspl.set.ex;
 import bguspl.set.Env;
 
 //import java.util.List;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Semaphore;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-
-import static java.util.Collections.shuffle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class manages the dealer's threads and data
@@ -27,12 +28,14 @@ public class Dealer implements Runnable {
     private final Table table;
     private final Player[] players;
     protected Semaphore lock;
-    ArrayBlockingQueue<int[]> checkSets;
+    ArrayBlockingQueue<Claim> checkSets;
+    final GameStats stats = new GameStats();
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The card ids that are left in the dealer's deck (the first deckCount entries).
      */
-    private final List<Integer> deck;
+    private final int[] deck;
+    private int deckCount;
 
     /**
      * True iff game should be terminated.
@@ -40,17 +43,38 @@ public class Dealer implements Runnable {
     private volatile boolean terminate;
 
     /**
-     * The time when the dealer needs to reshuffle the deck due to turn timeout.
+     * The time when the dealer needs to reshuffle the deck due to turn timeout (in System.nanoTime() terms, so the
+     * countdown is not affected by changes of the wall clock; Long.MAX_VALUE before the first deal).
      */
     private long reshuffleTime = Long.MAX_VALUE;
 
+    /**
+     * The dealer sleeps on this lock (rather than on its monitor), so that many sleeping dealers on virtual threads
+     * do not pin their carrier threads.
+     */
+    private final ReentrantLock sleepLock = new ReentrantLock();
+    private final Condition workReady = sleepLock.newCondition();
+
+    /**
+     * The generator of the deck shuffles (seeded by the Seed config key).
+     */
+    private final Random random;
+
+    /**
+     * True iff the game was resumed from a checkpoint, so the first round is on the table already.
+     */
+    private boolean restored;
+
     public Dealer(Env env, Table table, Player[] players) {
         this.env = env;
         this.table = table;
         this.players = players;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+        deck = new int[env.config.deckSize];
+        for (int card = 0; card < deck.length; card++)
+            deck[deckCount++] = card;
         lock = new Semaphore(1, true);  
-        checkSets = new ArrayBlockingQueue<int[]>(players.length, true);
+        checkSets = new ArrayBlockingQueue<Claim>(players.length, true);
+        random = env.random.dealer();
         terminate = false;
     }
 
@@ -60,16 +84,19 @@ public class Dealer implements Runnable {
     @Override
     public void run() {
         startPlayers(); //initializing all the players threads
-        shuffle(deck);
+        if (restored) updateTimerDisplay(true); //the cards of the first round were put back on the table, and the deck is in its order
+        else shuffleDeck();
         env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
         while (!shouldFinish()) {
             placeCardsOnTable();
+            checkpoint();
             timerLoop();
-            updateTimerDisplay(false);
             removeAllCardsFromTable();
         }
+        stats.finish();
         announceWinners();
-        terminate();
+        requestTermination();
+        stats.shutdownLatency.record(awaitPlayers());
         env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
 
@@ -77,9 +104,8 @@ public class Dealer implements Runnable {
      * The inner loop of the dealer thread that runs as long as the countdown did not time out.
      */
     private void timerLoop() {
-        while (!terminate && System.currentTimeMillis() < reshuffleTime) {
+        while (!terminate && remainingMillis() > 0) {
             sleepUntilWokenOrTimeout();
-            updateTimerDisplay(false);
             removeCardsFromTable();
             placeCardsOnTable();
         }
@@ -87,16 +113,43 @@ public class Dealer implements Runnable {
 
     /**
      * Called when the game should be terminated.
+     * All the players are told to end at once, and then waited for together, up to TerminateTimeoutSeconds in total.
      */
     public void terminate() {
         // TODO implement
+        requestTermination();
+        awaitPlayers();
+    }
+
+    /**
+     * Waits for all the players' threads to end, up to TerminateTimeoutSeconds in total (not per player).
+     *
+     * @return - the number of nanoseconds it took the players to end (about the timeout, if some did not).
+     */
+    private long awaitPlayers() {
+        long start = System.nanoTime();
+        long deadline = start + env.config.terminateTimeoutMillis * 1_000_000L;
+        int stuck = 0;
+        for (Player player : players) {
+            if (!player.awaitTermination(deadline)) stuck++;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (stuck == 0) env.logger.info("terminated all players in " + elapsed / 1_000_000 + " ms");
+        else env.logger.warning(stuck + " players did not terminate within " + env.config.terminateTimeoutMillis + " ms");
+        return elapsed;
+    }
+
+    /**
+     * Tells the dealer and all the players to end, without waiting for them.
+     * The dealer thread then ends once its players did (or the terminate timeout passed).
+     */
+    public void requestTermination() {
         terminate = true;
-        for (int i = players.length - 1; i >= 0; i--) {
-            System.out.println("trying to terminate player: " + i);
-            players[i].terminate();
-            System.out.println("terminated player: " + i);
+        wakeUp(); //the dealer may be sleeping until its next timeout
+        table.hintEngine().shutdown();
+        for (Player player : players) {
+            player.signalTermination();
         }
-        System.out.println("terminated all players");
     }
 
     /**
@@ -105,7 +158,7 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        return terminate || env.util.findSets(Arrays.copyOf(deck, deckCount), 1).isEmpty();
     }
 
     /**
@@ -114,136 +167,228 @@ public class Dealer implements Runnable {
     private void removeCardsFromTable() {
         // TODO implement
         try{
-            if (!checkSets.isEmpty() && reshuffleTime >= System.currentTimeMillis()) { //if the dealer has sets to check and still has some time for the round
+            if (!checkSets.isEmpty() && remainingMillis() >= 0) { //if the dealer has sets to check and still has some time for the round
                 while (!table.tableLock.compareAndSet(false, true)) {} //makes sure the table is getting lock so the dealer can make changes in it 
-                int[] split = checkSets.take();
-                boolean valid = true;
-                int[] set = new int[env.config.featureSize]; 
-                for (int i = 0; i < env.config.featureSize; i++) {
-                    if (table.cardToSlot[split[i]] != null) {
-                        set[i] = split[i]; 
-                    }
-                    else {
-                        valid = false; //if the set, as for that point, includes a card that was already has been removed 
-                        break;
-                    }
-                }
-                if (!valid) {
+                stats.claimTaken(checkSets.size());
+                Claim claim = checkSets.take();
+                if (env.journal != null) env.journal.claimTaken(claim.player, claim.cards);
+                long takenNanos = System.nanoTime();
+                stats.queueLatency.record(takenNanos - claim.createdNanos);
+                Player claimer = players[claim.player];
+                if (isStale(claim)) {
+                    stats.claimStale();
+                    if (env.journal != null) env.journal.claimStale(claim.player);
                     table.tableLock.compareAndSet(true, false);
-                    synchronized(players[split[env.config.featureSize]]) {
-                        players[split[env.config.featureSize]].notifyAll(); //a player whose one of it's set's cards already been removed, now its not part of its's actionsQueue 
-                    }
+                    claimer.wakeUp(); //a player whose one of it's set's cards already been removed, now its not part of its's actionsQueue
+                    stats.verifyLatency.record(System.nanoTime() - takenNanos);
                     return;
                 }
-                if (env.util.testSet(set)) {
-                    for (int i = 0; i < env.config.featureSize; i++) {
-                        //table.removeSlotTokens(table.cardToSlot[split[i]]);
+                boolean isSet = env.util.testSet(claim.cards);
+                stats.claimVerified(isSet);
+                if (env.journal != null) env.journal.claimVerified(claim.player, isSet);
+                if (isSet) {
+                    for (int card : claim.cards) {
+                        int slot = table.cardToSlot[card];
                         for(Player player : players){ //for all the other players whom might have tokens on the set that has just been checked and about to been remove from table
-                            if (player.id != split[env.config.featureSize]){
-                                if(player.actionsQueue.contains(table.cardToSlot[split[i]])){
-                                    player.actionsQueue.remove(table.cardToSlot[split[i]]); //if they put a token on a card of an approved set, the action is being removed from their actionsQueue
-                                }
+                            if (player.id != claim.player){
+                                player.actionsQueue.remove(slot); //if they put a token on a card of an approved set, the action is being removed from their actionsQueue
                             }
-                        }    
-                        table.removeCard(table.cardToSlot[split[i]]);
+                        }
+                        table.removeCard(slot);
                     }
-                    shuffle(table.openSlots);
-                    while (!players[split[env.config.featureSize]].point.compareAndSet(false, true)) {}
-                    if (deck.isEmpty() && table.countCards() == 0) {
+                    table.shuffleOpenSlots();
+                    table.publishSnapshot();
+                    while (!claimer.raise(Player.POINT)) {}
+                    if (deckCount == 0 && table.snapshot().countCards() == 0) {
                         terminate = true;
                     }
                 }
                 else {
-                    while (!players[split[env.config.featureSize]].penalty.compareAndSet(false, true)) {}
+                    while (!claimer.raise(Player.PENALTY)) {}
                 }
                 table.tableLock.compareAndSet(true, false);
-                synchronized(players[split[env.config.featureSize]]) {
-                    players[split[env.config.featureSize]].notifyAll();
-                }
+                claimer.wakeUp();
+                stats.verifyLatency.record(System.nanoTime() - takenNanos);
             }
         } catch (InterruptedException ignored) {}
     }
 
+    /**
+     * Checks whether a claim was made against a table that has changed since (called while holding the table lock).
+     * Every change of the table publishes a new version, so the cards of a claim made at the current version are
+     * known to be on the table, and are only looked up otherwise.
+     *
+     * @return - true iff one of the claim's cards has been removed from the table.
+     */
+    boolean isStale(Claim claim) {
+        if (claim.version == table.version()) return false;
+        for (int card : claim.cards) {
+            if (table.cardToSlot[card] == null) return true; //the set, as for that point, includes a card that was already has been removed
+        }
+        return false;
+    }
+
     /**
      * Check if any cards can be removed from the deck and placed on the table.
      */
     private void placeCardsOnTable() {
         // TODO implement
-        if (!deck.isEmpty() && !table.openSlots.isEmpty()) {
+        if (deckCount > 0 && table.hasOpenSlot()) {
+            long start = System.nanoTime();
             while (!table.tableLock.compareAndSet(false, true)) {} //while the dealer is placing new cards we donwt want any player to interrupt
-            while (!table.openSlots.isEmpty() && !deck.isEmpty()) {                
-                table.placeCard(deck.remove(0), table.openSlots.removeFirst());
-            }
-            updateTimerDisplay(true);
-            if (env.config.hints) { // Bonus feature
-                table.hints();
+            try {
+                while (table.hasOpenSlot() && deckCount > 0) {
+                    table.placeCard(deck[--deckCount], table.takeOpenSlot()); //the deck is shuffled, so taking from its end is as good as from its start
+                }
+                table.publishSnapshot();
+                updateTimerDisplay(true);
+                if (env.config.hints) { // Bonus feature
+                    table.hints();
+                }
+            } finally {
+                table.tableLock.compareAndSet(true, false); //the players must never be locked out, whatever happened
             }
-            table.tableLock.compareAndSet(true, false);
+            stats.dealLatency.record(System.nanoTime() - start);
         }
     }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
+     * Sleep until the countdown times out (for a second at most) or until the thread is awakened for some purpose.
+     * The user interface updates the countdown by itself, so there is no need to wake up just to show it.
      */
-    private synchronized void sleepUntilWokenOrTimeout() {
+    private void sleepUntilWokenOrTimeout() {
         // TODO implement
-        if (checkSets.isEmpty()){
-            if (reshuffleTime - System.currentTimeMillis() <= env.config.turnTimeoutWarningMillis) {
-                try {
-                    wait (10); //in this case we want the dealer to be ready for the next action to come (just before the end of the round)
-                } catch (InterruptedException e) {}
-            }
-            else {
-                try {
-                    wait(1000);
-                } catch (InterruptedException e) {}
+        sleepLock.lock();
+        try {
+            if (checkSets.isEmpty()){
+                workReady.await(Math.min(remainingMillis(), 1000), TimeUnit.MILLISECONDS);
             }
+        } catch (InterruptedException ignored) {
+        } finally {
+            sleepLock.unlock();
+        }
+    }
+
+    /**
+     * Wakes the dealer up (called by a player after it added a claim to checkSets).
+     */
+    void wakeUp() {
+        sleepLock.lock();
+        try {
+            workReady.signalAll();
+        } finally {
+            sleepLock.unlock();
         }
     }
 
     /**
      * Reset and/or update the countdown and the countdown display.
+     * The deadline is published to the user interface once per reset, and the user interface shows the countdown to it
+     * at its own pace, so there is nothing to update between resets.
      */
     private void updateTimerDisplay(boolean reset) {
         // TODO implement
         if (reset){
-            this.reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis + 999;
-            env.ui.setCountdown(env.config.turnTimeoutMillis, false);
-        }
-        else {
-            if (reshuffleTime - System.currentTimeMillis() <= 0) {
-                env.ui.setCountdown(0, true);
-            }
-            else if (reshuffleTime - System.currentTimeMillis() <= env.config.turnTimeoutWarningMillis) {
-                env.ui.setCountdown(reshuffleTime - System.currentTimeMillis(), true);
-            }
-            else {
-                env.ui.setCountdown(reshuffleTime - System.currentTimeMillis(), false);
-            }
+            this.reshuffleTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(env.config.turnTimeoutMillis + 999);
+            env.ui.setCountdownDeadline(reshuffleTime, env.config.turnTimeoutWarningMillis);
         }
     }
 
+    /**
+     * @return - the milliseconds left until the countdown times out (Long.MAX_VALUE before the first deal).
+     */
+    private long remainingMillis() {
+        return reshuffleTime == Long.MAX_VALUE ? Long.MAX_VALUE : TimeUnit.NANOSECONDS.toMillis(reshuffleTime - System.nanoTime());
+    }
+
     /**
      * Returns all the cards from the table to the deck.
      */
     private void removeAllCardsFromTable() {
         // TODO implement
+        long start = System.nanoTime();
         while (!table.tableLock.compareAndSet(false, true)) {}
         table.removeAllTokens(); //in order to make sure all the tokens has been removed
         //table.removeAllTokens();
         for (int i = 0; i < table.slotToCard.length; i++){
             if (table.slotToCard[i] != null){
-                deck.add(table.slotToCard[i]); //taking the cards that hasn't been removed in this round, back to the deck
+                deck[deckCount++] = table.slotToCard[i]; //taking the cards that hasn't been removed in this round, back to the deck
                 table.removeCard(i);
             }
         }
-        shuffle(table.openSlots);
+        table.shuffleOpenSlots();
+        table.publishSnapshot();
         checkSets.clear(); //making sure no prior set is staying in the dealer's sets to check
         for (Player player : players){
                 player.clearActionsQueue(); //or the player's actionsQueue
         }
         table.tableLock.compareAndSet(true, false);
-        shuffle(deck);
+        shuffleDeck();
+        stats.reshuffled();
+        if (env.journal != null) env.journal.reshuffled(deckCount);
+        stats.reshuffleLatency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Saves the state of the game to the CheckpointFile (if any), at the start of a round.
+     * The state is copied while the dealer holds the table lock (a few microseconds, in which the players wait as they
+     * do while cards are dealt), and written to the file after the lock is let go.
+     */
+    private void checkpoint() {
+        if (env.config.checkpointFile.isEmpty()) return;
+        long start = System.nanoTime();
+        while (!table.tableLock.compareAndSet(false, true)) {}
+        Checkpoint checkpoint = capture();
+        table.tableLock.compareAndSet(true, false);
+        try {
+            checkpoint.write(Path.of(env.config.checkpointFile));
+        } catch (IOException e) {
+            env.logger.warning("cannot write the checkpoint " + env.config.checkpointFile + ": " + e);
+        }
+        stats.checkpointLatency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * @return - the state of the game (the caller holds the table lock).
+     */
+    Checkpoint capture() {
+        int[] slots = new int[table.slotToCard.length];
+        for (int slot = 0; slot < slots.length; slot++) {
+            Integer card = table.slotToCard[slot];
+            slots[slot] = card == null ? -1 : card;
+        }
+        int[] scores = new int[players.length];
+        for (int player = 0; player < players.length; player++)
+            scores[player] = players[player].score();
+        return new Checkpoint(deck.length, Arrays.copyOf(deck, deckCount), slots, scores);
+    }
+
+    /**
+     * Puts the game in the state of a checkpoint. Called before the dealer thread is started; the game then resumes
+     * with the round of the checkpoint, with a fresh countdown.
+     *
+     * @pre - checkpoint was checked against the game settings (Checkpoint.check).
+     */
+    public void restore(Checkpoint checkpoint) {
+        System.arraycopy(checkpoint.deck, 0, deck, 0, checkpoint.deck.length);
+        deckCount = checkpoint.deck.length;
+        table.restoreCards(checkpoint.slots);
+        for (int player = 0; player < players.length; player++)
+            players[player].restoreScore(checkpoint.scores[player]);
+        restored = true;
+        env.logger.info("resumed from a checkpoint: " + checkpoint);
+    }
+
+    /**
+     * Shuffles the cards left in the deck (Fisher-Yates, with the seeded generator).
+     */
+    private void shuffleDeck() {
+        for (int i = deckCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int card = deck[i];
+            deck[i] = deck[j];
+            deck[j] = card;
+        }
     }
 
     /**
@@ -270,15 +415,19 @@ public class Dealer implements Runnable {
         env.ui.announceWinner(ret);
     }
 
+    /**
+     * @return - the claim counters of the game.
+     */
+    public GameStats stats() {
+        return stats;
+    }
+
     //New Method
     private void startPlayers() {
-        Thread[] threads = new Thread[players.length];
-        for (int i = 0; i < players.length; i++) {
-            threads[i] = new Thread(players[i]);
-        }
         for (int i = 0; i < players.length; i++) {
-            threads[i].start();
-            System.out.println("Starting player - " + i);
+            if (env.config.playerActors) players[i].start(); //the player runs on the shared scheduler
+            else env.executor.start("player-" + i, players[i]);
+            env.logger.info("starting player - " + i);
         }
     }
 }
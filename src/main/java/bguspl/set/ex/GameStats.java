@@ -0,0 +1,167 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class counts what goes through the dealer's claim queue during a game, and how long each stage takes.
+ * The counters are updated by the dealer and player threads without locking, and can be read at any time.
+ */
+public class GameStats {
+
+    /**
+     * The time the game started, and the time it ended (0 while the game is running).
+     */
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+
+    /**
+     * The claims sent to the dealer, and the claims computer players dropped themselves (AiPreValidate).
+     */
+    private final LongAdder claims = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    /**
+     * The claims the dealer verified, split by verdict, and the claims it dropped since their cards were gone.
+     */
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder points = new LongAdder();
+    private final LongAdder penalties = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+
+    /**
+     * The dealer's queue depth, sampled every time the dealer takes a claim.
+     */
+    private final LongAdder queueDepthSum = new LongAdder();
+    private final LongAccumulator maxQueueDepth = new LongAccumulator(Math::max, 0);
+
+    /**
+     * The number of times the dealer collected the cards from the table (at the end of every round).
+     */
+    private final LongAdder reshuffles = new LongAdder();
+
+    /**
+     * Stage latencies: a claim waiting in the dealer's queue, the dealer verifying it (until the player is woken up),
+     * the dealer dealing cards, and the dealer collecting the cards at the end of a round.
+     */
+    public final LatencyHistogram queueLatency = new LatencyHistogram();
+    public final LatencyHistogram verifyLatency = new LatencyHistogram();
+    public final LatencyHistogram dealLatency = new LatencyHistogram();
+    public final LatencyHistogram reshuffleLatency = new LatencyHistogram();
+
+    /**
+     * The time it took the dealer to save a checkpoint at the start of a round (CheckpointFile).
+     */
+    public final LatencyHistogram checkpointLatency = new LatencyHistogram();
+
+    /**
+     * The time it took the player threads to end once the game was terminated (one value per game).
+     */
+    public final LatencyHistogram shutdownLatency = new LatencyHistogram();
+
+    void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    void claimSubmitted() {
+        claims.increment();
+    }
+
+    void claimShed() {
+        shed.increment();
+    }
+
+    void claimTaken(int queueDepth) { //queueDepth - the number of claims in the queue, including the one taken
+        queueDepthSum.add(queueDepth);
+        maxQueueDepth.accumulate(queueDepth);
+    }
+
+    void reshuffled() {
+        reshuffles.increment();
+    }
+
+    void claimStale() {
+        stale.increment();
+    }
+
+    void claimVerified(boolean valid) {
+        verified.increment();
+        (valid ? points : penalties).increment();
+    }
+
+    public long claims() {
+        return claims.sum();
+    }
+
+    public long shed() {
+        return shed.sum();
+    }
+
+    public long verified() {
+        return verified.sum();
+    }
+
+    public long points() {
+        return points.sum();
+    }
+
+    public long penalties() {
+        return penalties.sum();
+    }
+
+    public long stale() {
+        return stale.sum();
+    }
+
+    public long reshuffles() {
+        return reshuffles.sum();
+    }
+
+    /**
+     * @return - the average number of claims in the dealer's queue when the dealer takes one.
+     */
+    public double averageQueueDepth() {
+        long taken = verified.sum() + stale.sum();
+        return taken == 0 ? 0 : (double) queueDepthSum.sum() / taken;
+    }
+
+    public long maxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * @return - the number of seconds the game has been running.
+     */
+    public double elapsedSeconds() {
+        long end = endNanos;
+        return ((end == 0 ? System.nanoTime() : end) - startNanos) / 1e9;
+    }
+
+    /**
+     * Adds the counters of another game to this one (the elapsed time is not added).
+     */
+    public void add(GameStats other) {
+        claims.add(other.claims());
+        shed.add(other.shed());
+        verified.add(other.verified());
+        points.add(other.points());
+        penalties.add(other.penalties());
+        stale.add(other.stale());
+        queueDepthSum.add(other.queueDepthSum.sum());
+        maxQueueDepth.accumulate(other.maxQueueDepth());
+        reshuffles.add(other.reshuffles());
+        queueLatency.add(other.queueLatency);
+        verifyLatency.add(other.verifyLatency);
+        dealLatency.add(other.dealLatency);
+        reshuffleLatency.add(other.reshuffleLatency);
+        checkpointLatency.add(other.checkpointLatency);
+        shutdownLatency.add(other.shutdownLatency);
+    }
+
+    @Override
+    public String toString() {
+        double seconds = elapsedSeconds();
+        return String.format("%.1fs: %d claims (%d shed by players), %d verified (%.0f/s): %d points, %d penalties, %d stale; queue depth avg %.2f max %d",
+                seconds, claims(), shed(), verified(), verified() / seconds, points(), penalties(), stale(), averageQueueDepth(), maxQueueDepth());
+    }
+}
@@ -0,0 +1,178 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * This class computes the legal sets on the table (hints) on a background thread and caches them per table version.
+ */
+public class HintEngine {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The latest snapshot waiting to be processed (null if none). Newer requests replace older ones.
+     */
+    private final AtomicReference<TableSnapshot> pending = new AtomicReference<>();
+
+    /**
+     * The hints of the last processed table version.
+     */
+    private volatile Hints cached = new Hints(-1, Collections.emptyList());
+
+    /**
+     * The last table version whose hints were printed (read and written only by the hints thread). Kept apart from the
+     * cache, which hints(TableSnapshot) may fill first from another thread.
+     */
+    private long printed = -1;
+
+    /**
+     * Where the hints are printed to (written only by the hints thread, and created by it on first use).
+     */
+    private Writer sink;
+
+    /**
+     * The background hints thread (created on first use).
+     */
+    private ExecutorService worker;
+
+    /**
+     * True iff the hints thread was stopped, after which requests are ignored.
+     */
+    private boolean shutdown;
+
+    /**
+     * The hints computed for a single table version.
+     */
+    private static final class Hints {
+        final long version;
+        final List<int[]> sets;
+
+        Hints(long version, List<int[]> sets) {
+            this.version = version;
+            this.sets = sets;
+        }
+    }
+
+    public HintEngine(Env env) {
+        this(env, null);
+    }
+
+    public HintEngine(Env env, Writer sink) {
+        this.env = env;
+        this.sink = sink;
+    }
+
+    /**
+     * Asks for the hints of a table snapshot to be computed and printed in the background. Never blocks.
+     * If several snapshots are requested before the hints thread gets to them, only the newest is processed.
+     * Does nothing once the engine was shut down.
+     *
+     * @param snapshot - the table snapshot.
+     */
+    public void request(TableSnapshot snapshot) {
+        if (pending.getAndSet(snapshot) == null)
+            submit();
+    }
+
+    /**
+     * @return - the hints (legal sets, as sorted slot arrays) of the last table version processed, possibly empty.
+     */
+    public List<int[]> hints() {
+        return cached.sets;
+    }
+
+    /**
+     * @return - the table version the current hints were computed for (-1 if none).
+     */
+    public long version() {
+        return cached.version;
+    }
+
+    /**
+     * Returns the hints of a specific table snapshot, computing them on the calling thread if they are not cached.
+     *
+     * @param snapshot - the table snapshot.
+     * @return - the legal sets on the table, as sorted slot arrays.
+     */
+    public List<int[]> hints(TableSnapshot snapshot) {
+        Hints hints = cached;
+        if (hints.version == snapshot.version)
+            return hints.sets;
+        return compute(snapshot).sets;
+    }
+
+    /**
+     * Stops the hints thread. Pending requests are dropped, and later ones ignored.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        if (worker != null) worker.shutdownNow();
+    }
+
+    /**
+     * Hands the pending snapshot to the hints thread, unless it was stopped (under the same lock as shutdown, so the
+     * worker never rejects it).
+     */
+    private synchronized void submit() {
+        if (!shutdown) worker().execute(this::process);
+    }
+
+    private ExecutorService worker() {
+        if (worker == null) {
+            worker = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "hints");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return worker;
+    }
+
+    private void process() {
+        TableSnapshot snapshot = pending.getAndSet(null);
+        if (snapshot == null || snapshot.version <= printed) return;
+        printed = snapshot.version;
+        List<int[]> sets = hints(snapshot);
+        try {
+            if (sink == null) sink = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+            for (int[] slots : sets) {
+                int[] cards = Arrays.stream(slots).map(snapshot::card).toArray();
+                sink.append("Hint: Set found: slots: ").append(Arrays.toString(slots))
+                        .append(" features: ").append(Arrays.deepToString(env.util.cardsToFeatures(cards)))
+                        .append(System.lineSeparator());
+            }
+            sink.flush();
+        } catch (IOException e) {
+            env.logger.warning("cannot print hints: " + e.getMessage());
+        }
+    }
+
+    private Hints compute(TableSnapshot snapshot) {
+        int[] slotOf = new int[env.config.deckSize];
+        for (int slot = 0; slot < snapshot.tableSize(); slot++)
+            if (snapshot.card(slot) != -1) slotOf[snapshot.card(slot)] = slot;
+        List<Integer> cards = Arrays.stream(snapshot.cards()).boxed().collect(Collectors.toList());
+        List<int[]> sets = new ArrayList<>();
+        for (int[] set : env.util.findSets(cards, Integer.MAX_VALUE))
+            sets.add(Arrays.stream(set).map(card -> slotOf[card]).sorted().toArray());
+        Hints hints = new Hints(snapshot.version, Collections.unmodifiableList(sets));
+        if (hints.version > cached.version) cached = hints;
+        return hints;
+    }
+}
@@ -0,0 +1,97 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations in nanoseconds, for percentiles within about 12% of the real values.
+ * Values below 8 have a bucket each; above that, every power of two is split into 8 equal buckets.
+ * Durations of 2^40 ns (about 18 minutes) and more all fall in the last bucket. The buckets are allocated on the
+ * first record, so idle histograms (e.g. of hosted games nobody plays) take no space.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_EXPONENT = 39;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    private static final AtomicLongArray EMPTY = new AtomicLongArray(0);
+
+    private volatile AtomicLongArray counts = EMPTY;
+
+    private static int index(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) Math.max(nanos, 0);
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos); // >= SUB_BUCKET_BITS
+        if (exponent > MAX_EXPONENT) return BUCKETS - 1;
+        int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long highestValue(int index) { //the largest value that falls in the bucket
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    private AtomicLongArray buckets() {
+        AtomicLongArray buckets = counts;
+        if (buckets != EMPTY) return buckets;
+        synchronized (this) {
+            if (counts == EMPTY) counts = new AtomicLongArray(BUCKETS);
+            return counts;
+        }
+    }
+
+    public void record(long nanos) {
+        buckets().incrementAndGet(index(nanos));
+    }
+
+    /**
+     * Adds all the values recorded by another histogram to this one.
+     */
+    public void add(LatencyHistogram other) {
+        AtomicLongArray others = other.counts;
+        for (int i = 0; i < others.length(); i++) {
+            long count = others.get(i);
+            if (count != 0) buckets().addAndGet(i, count);
+        }
+    }
+
+    public long count() {
+        AtomicLongArray counts = this.counts;
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++)
+            count += counts.get(i);
+        return count;
+    }
+
+    /**
+     * @param fraction - the percentile, as a fraction between 0 and 1 (e.g. 0.99).
+     * @return - the value (in nanoseconds) that at least the given fraction of the recorded values do not exceed,
+     *           or 0 if nothing was recorded.
+     */
+    public long percentile(double fraction) {
+        AtomicLongArray counts = this.counts;
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++)
+            total += counts.get(i);
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return highestValue(i);
+        }
+        return highestValue(counts.length() - 1);
+    }
+
+    /**
+     * @return - the 50th, 90th, 99th and 99.9th percentiles in microseconds, formatted for a report.
+     */
+    @Override
+    public String toString() {
+        return String.format("n=%d p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus", count(),
+                percentile(0.5) / 1e3, percentile(0.9) / 1e3, percentile(0.99) / 1e3, percentile(0.999) / 1e3);
+    }
+}
@@ -2,9 +2,15 @@ package bguspl.set.ex;
 
 import static java.util.Collections.synchronizedCollection;
 
+import java.time.Duration;
 import java.util.Random;
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 
 import bguspl.set.Env;
 
@@ -34,12 +40,12 @@ public class Player implements Runnable {
     /**
      * The thread representing the current player.
      */
-    private Thread playerThread;
+    private volatile Thread playerThread;
 
     /**
      * The thread of the AI (computer) player (an additional thread used to generate key presses).
      */
-    private Thread aiThread;
+    private volatile Thread aiThread;
 
     /**
      * True iff the player is human (not a computer player).
@@ -52,20 +58,43 @@ public class Player implements Runnable {
     private volatile boolean terminate;
 
     /**
-     * The current score of the player.
+     * The current score of the player (written by the player thread only, read by the dealer for checkpoints).
      */
-    private int score;
+    private volatile int score;
 
     /**
      * New Fields we added
      */
     protected ArrayBlockingQueue<Integer> actionsQueue; // contains the player's input
-    protected int[] tokens;
     private Dealer dealer;
-    protected AtomicBoolean point = new AtomicBoolean(false);
-    protected AtomicBoolean penalty = new AtomicBoolean(false);
-    protected AtomicBoolean afterPen = new AtomicBoolean(false); //wheter the player is after penalty or not
-    protected AtomicBoolean run = new AtomicBoolean(true); //boolean representing whtehr the thread should rest or keep running (local for every player)
+    private final AtomicInteger flags = new AtomicInteger(); //the player's boolean state, one bit per flag below (a single object rather than one per flag)
+    static final int POINT = 1; //the dealer awarded the player a point
+    static final int PENALTY = 2; //the dealer penalized the player
+    static final int AFTER_PENALTY = 4; //the player is just after a penalty (and has not changed its tokens since)
+    static final int SCHEDULED = 8; //the mailbox is scheduled to be drained (actor mode only)
+    private final ReentrantLock verdictLock = new ReentrantLock(); //a lock (rather than the player's monitor) so waiting virtual threads do not pin their carrier
+    private final Condition verdictReady = verdictLock.newCondition();
+    private volatile boolean awaitingVerdict; //true while the player's claim is with the dealer (guarded by verdictLock)
+    private final Random random; //used by the AI to choose slots (seeded per player, null for human players)
+    private final AiProfile aiProfile; //when the AI presses its next key (null for human players)
+    private long nextAiPressNanos; //when the next paced AI key press is due
+    private final AiStrategy aiStrategy; //which key the AI presses next (null for human players)
+    private static final long TABLE_LOCKED_PARK_NANOS = 100_000; //how long the player thread waits before checking the table lock again
+    private static final long AI_IDLE_PARK_NANOS = 1_000_000; //how long the AI thread waits when it has nothing to press
+    private static final long TERMINATE_ESCALATION_NANOS = 50_000_000; //how often the player's threads are interrupted again while the game waits for them to end
+
+    /**
+     * Actor mode (config.playerActors): the player is a single event-driven task on the shared scheduler.
+     * Key presses, AI input generation and dealer verdicts are all messages in the same mailbox, handled one at a time.
+     */
+    private final ConcurrentLinkedQueue<Integer> mailbox = new ConcurrentLinkedQueue<>(); //slots (>= 0) or one of the messages below
+    private static final Integer AI_TICK = -1; //generate the next AI key press
+    private static final Integer VERDICT = -2; //the dealer handled (or dropped) the player's claim
+    private static final Integer FREEZE_TICK = -3; //a second of the player's freeze has passed
+    private static final int MAILBOX_BATCH = 16; //the number of messages handled before yielding the scheduler thread
+    private boolean claimPending; //true while the player's claim is with the dealer (actor mode only)
+    private long freezeMillis; //the remaining freeze time (actor mode only)
+    private boolean aiSuspended; //true iff the AI stopped generating key presses until the player can act again (actor mode only)
 
 
      /**
@@ -93,8 +122,9 @@ public class Player implements Runnable {
         this.dealer = dealer;
         this.score = 0;
         actionsQueue = new ArrayBlockingQueue<Integer>(env.config.featureSize); //a blocking queue contains all the current actions -chosen cards for specific set, of a player's thread
-        tokens = new int[env.config.featureSize + 1];
-        tokens[env.config.featureSize] = id;
+        random = human ? null : env.random.player(id);
+        aiProfile = human ? null : new AiProfile(env.config);
+        aiStrategy = human ? null : new AiStrategy(env, table, id, random);
     }
 
     /**
@@ -112,7 +142,7 @@ public class Player implements Runnable {
                 act();
             } catch (InterruptedException e) {}
         }
-        if (!human) {
+        if (aiThread != null) {
             try {
                  aiThread.join(); //as the AI thread finish its running (exiting the while loop after terminate method is being called from the dealer) it's being terminated.
             } catch (InterruptedException ignored) {}
@@ -123,34 +153,76 @@ public class Player implements Runnable {
     /**
      * Creates an additional thread for an AI (computer) player. The main loop of this thread repeatedly generates
      * key presses. If the queue of key presses is full, the thread waits until it is not full.
+     * Paced AI profiles do not need a thread: their key presses are scheduled on the shared scheduler instead.
      */
     private void createArtificialIntelligence() {
+        if (aiProfile.paced()) {
+            nextAiPressNanos = System.nanoTime();
+            scheduleAiPress();
+            return;
+        }
         // note: this is a very, very smart AI (!) - we wouldn't say...
-        aiThread = new Thread(() -> {
+        aiThread = env.executor.start("computer-" + id, () -> {
             env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
             while (!terminate) {
                 // TODO implement player key press simulator
-                Random rand = new Random();
-                int randSlot = rand.nextInt(env.config.tableSize);
-                keyPressed(randSlot);
+                int aiSlot = acceptsKeys() ? aiStrategy.nextSlot(aiIdle()) : -1;
+                if (aiSlot < 0) LockSupport.parkNanos(AI_IDLE_PARK_NANOS); //frozen, table locked or thinking: park rather than spin, since spinning virtual threads starve the others
+                while (aiSlot >= 0 && acceptsKeys() && !actionsQueue.offer(aiSlot)) {
+                    LockSupport.parkNanos(TABLE_LOCKED_PARK_NANOS); //a timed park rather than a blocking put: handing the carrier back and forth with the player thread would starve every other virtual thread
+                }
             }
             env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
-        }, "computer-" + id);
-        aiThread.start();
+        });
     }
 
     /**
-     * Called when the game should be terminated.
+     * Called when the game should be terminated. Waits (up to TerminateTimeoutSeconds) for the player's threads to end.
      */
     public void terminate() {
         // TODO implement
+        signalTermination();
+        awaitTermination(System.nanoTime() + env.config.terminateTimeoutMillis * 1_000_000L);
+    }
+
+    /**
+     * Tells the player's threads to end, without waiting for them (see awaitTermination).
+     */
+    void signalTermination() {
         terminate = true;
-        playerThread.interrupt();
-        System.out.println("terminating " + id);
-        
+        if (env.config.playerActors) return; //pending messages see the terminate flag and are dropped
+        env.logger.info("terminating player " + id);
+        interruptThreads();
+    }
+
+    /**
+     * Waits for the player thread to end. While waiting, the player's threads are interrupted again every
+     * TERMINATE_ESCALATION_NANOS, in case an interrupt was swallowed by a blocking call before the terminate flag was seen.
+     *
+     * @param deadlineNanos - the System.nanoTime() after which to stop waiting.
+     * @return - true iff the player thread ended (or never started) before the deadline.
+     */
+    boolean awaitTermination(long deadlineNanos) {
+        Thread thread = playerThread;
+        if (thread == null) return true; //the player thread has not started yet (or the player is an actor), it will see the terminate flag
         try {
-            playerThread.join();
-        } catch (InterruptedException ignored) {}
+            for (long remaining = deadlineNanos - System.nanoTime(); remaining > 0; remaining = deadlineNanos - System.nanoTime()) {
+                if (thread.join(Duration.ofNanos(Math.min(remaining, TERMINATE_ESCALATION_NANOS)))) return true;
+                interruptThreads();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!thread.isAlive()) return true;
+        env.logger.warning("player " + id + " did not terminate in time");
+        return false;
+    }
+
+    // New Method
+    private void interruptThreads() {
+        Thread ai = aiThread, player = playerThread;
+        if (ai != null) ai.interrupt(); //the AI thread may be parked until its next key press
+        if (player != null) player.interrupt();
     }
 
     /**
@@ -160,7 +232,11 @@ public class Player implements Runnable {
      */
     public void keyPressed(int slot) {
         // TODO implement
-            if ((!penalty.get() && !point.get() && !terminate) & !table.tableLock.get()) { //if the table isn't locked by the dealer thread (for changing cards and positions) let the players add actions (legal ones)
+            if (acceptsKeys()) { //if the table isn't locked by the dealer thread (for changing cards and positions) let the players add actions (legal ones)
+                if (env.config.playerActors) {
+                    post(slot);
+                    return;
+                }
                 try {
                     actionsQueue.put(slot);
                 } catch (InterruptedException e) {}
@@ -168,40 +244,65 @@ public class Player implements Runnable {
     }
 
     //New Method
-    private void act() throws InterruptedException {
-        if (!table.tableLock.get() && !terminate) {
-            int slot = actionsQueue.take();
-            if (table.slotToCard[slot] != null) { 
-                if (table.removeToken(id, slot)) { //the case where player want to cancel it's action (can happen just before dealer's check)
-                    afterPen.set(false);
+    private void scheduleAiPress() { //schedules the next paced AI key press, keeping the offered load independent of how long presses take
+        if (terminate) return;
+        nextAiPressNanos += aiProfile.nextDelayNanos(random);
+        env.executor.schedule(() -> { //dropped once the game's executor was shut down
+            if (!env.config.playerActors) {
+                int aiSlot = acceptsKeys() ? aiStrategy.nextSlot(aiIdle()) : -1;
+                if (aiSlot >= 0) {
+                    actionsQueue.offer(aiSlot); //never block the shared scheduler (the press is dropped if the player is busy)
                 }
-                else {
-                    table.placeToken(id, slot);
-                    if (!afterPen.get()) {
-                        boolean set = true;
-                        for (int i = 0; i < env.config.featureSize; i++) {
-                            if (table.playersTokens[id][i] == -1) {
-                                set = false;
-                                break;
-                            }
-                        }
-                        if (set) {
-                            checkSet();
-                        }
-                    }
-                    
-                }       
+                scheduleAiPress();
+            }
+            else post(AI_TICK);
+        }, nextAiPressNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    //New Method
+    private boolean acceptsKeys() {
+        return ((flags.get() & (POINT | PENALTY)) == 0 && !terminate) & !table.tableLock.get();
+    }
+
+    //New Method
+    private boolean aiIdle() { //true iff the player can act on the AI's next key press right away
+        boolean claimInFlight = env.config.playerActors ? claimPending : awaitingVerdict;
+        return (flags.get() & (POINT | PENALTY)) == 0 && !claimInFlight && actionsQueue.isEmpty();
+    }
+
+    //New Method
+    private void act() throws InterruptedException {
+        if (table.tableLock.get()) {
+            LockSupport.parkNanos(TABLE_LOCKED_PARK_NANOS); //the dealer is changing the table, let it (and other virtual threads) run
+        }
+        else if (!terminate) {
+            if (toggleToken(actionsQueue.take())) {
+                checkSet();
             }
         }   
     }
 
+    //New Method
+    private boolean toggleToken(int slot) { //places or removes a token, returns true iff the player now has a set to claim
+        if (table.snapshot().card(slot) != -1) { 
+            if (table.removeToken(id, slot)) { //the case where player want to cancel it's action (can happen just before dealer's check)
+                clear(AFTER_PENALTY);
+            }
+            else {
+                table.placeToken(id, slot);
+                return !flag(AFTER_PENALTY) && table.tokenCount(id) == env.config.featureSize;
+            }       
+        }
+        return false;
+    }
+
     /**
      * Award a point to a player and perform other related actions.
      *
      * @post - the player's score is increased by 1.
      * @post - the player's score is updated in the ui.
      */
-    public synchronized void point() { // Added synchronized
+    public void point() {
         // TODO implement
         
         int ignored = table.countCards(); // this part is just for demonstration in the unit tests
@@ -217,16 +318,16 @@ public class Player implements Runnable {
                 }
             }
         } catch (InterruptedException e) {}
-        point.set(false);
+        clear(POINT);
     }
 
     /**
      * Penalize a player and perform other related actions.
      */
-    public synchronized void penalty() { // Added synchronized
+    public void penalty() {
         // TODO implement
         long penTime = env.config.penaltyFreezeMillis;
-        afterPen.set(true); //AtomicBoolean represnting whether the player is in just after penalty or not
+        raise(AFTER_PENALTY); //whether the player is in just after penalty or not
         try{
             while (penTime > 0){
                 env.ui.setFreeze(id, penTime);
@@ -237,51 +338,258 @@ public class Player implements Runnable {
                 }
             }
         } catch (InterruptedException ignored) {}
-        penalty.set(false);
+        clear(PENALTY);
     }
 
     public int score() {
         return score;
     }
 
+    /**
+     * Sets the score of the player when the game is resumed from a checkpoint (before the player thread is started).
+     */
+    void restoreScore(int score) {
+        this.score = score;
+        env.ui.setScore(id, score);
+    }
+
     // New methods we added
-    public synchronized void checkSet() throws InterruptedException {
-        run.set(false); //while the set is under check, let the player thread rest (wait..)
+    public void checkSet() throws InterruptedException {
         dealer.lock.acquire();
-        int[] set = new int[env.config.featureSize + 1];
-        for (int i = 0; i < env.config.featureSize; i++) {
-            if (table.playersTokens[id][i] == -1) {
-                dealer.lock.release();
-                run.set(true);
-                return;
-            }
-            set[i] = table.slotToCard[table.playersTokens[id][i]]; //the player's set (by chosen cards)
+        Claim claim = createClaim();
+        if (claim == null || !preValidate(claim)) {
+            dealer.lock.release();
+            return;
         }
-        set[env.config.featureSize] = id;
-        dealer.checkSets.put(set); //push the set into the dealer check list 
+        setAwaitingVerdict();
+        dealer.checkSets.put(claim); //push the set into the dealer check list 
+        dealer.stats.claimSubmitted();
         dealer.lock.release();
-        synchronized (dealer) {
-            dealer.notifyAll(); //notify the delar he has a job
-        }
+        dealer.wakeUp(); //notify the delar he has a job
         if (!terminate) {
-            this.wait();
-            if (point.get()) {
+            awaitVerdict();
+            if (flag(POINT)) {
                 point();
             }
-            else if (penalty.get()) {
+            else if (flag(PENALTY)) {
                 penalty();
             }
-            run.set(true);
         }
     }
 
     // New Method
     public void clearActionsQueue() {
         actionsQueue.clear();
-        afterPen.set(false);
-        run.set(true);
-        synchronized (this) {   
-            this.notifyAll();
+        clear(AFTER_PENALTY);
+        wakeUp();
+    }
+
+    // New Method
+    private Claim createClaim() { //the player's current set, or null if it is not (or no longer) on the table
+        TableSnapshot view = table.snapshot();
+        int[] slots = table.tokenSlots(id);
+        int[] cards = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            cards[i] = view.card(slots[i]); //the player's set (by chosen cards)
+            if (cards[i] == -1) return null; //the card has already been removed from the table
+        }
+        return slots.length == env.config.featureSize ? new Claim(id, slots, cards, view.version) : null;
+    }
+
+    // New Method
+    private boolean preValidate(Claim claim) { //true iff the claim should be sent to the dealer
+        if (human || !env.config.aiPreValidate) return true;
+        boolean valid = env.util.testSet(claim.cards) != random.nextDouble() < env.config.aiPreValidateErrorRate; //a wrong check flips the answer
+        if (!valid) {
+            table.removePlayerTokens(id); //start over, as after a penalty, without the dealer's round-trip and the freeze
+            dealer.stats.claimShed();
+        }
+        return valid;
+    }
+
+    // New Method
+    private void setAwaitingVerdict() {
+        verdictLock.lock();
+        try {
+            awaitingVerdict = true;
+        } finally {
+            verdictLock.unlock();
+        }
+    }
+
+    // New Method
+    private void awaitVerdict() throws InterruptedException {
+        verdictLock.lock();
+        try {
+            while (awaitingVerdict && !terminate) {
+                verdictReady.await();
+            }
+        } finally {
+            verdictLock.unlock();
+        }
+    }
+
+    // New Method
+    public void wakeUp() { //called by the dealer once the player's claim was handled (or dropped)
+        if (env.config.playerActors) {
+            post(VERDICT);
+            return;
+        }
+        verdictLock.lock();
+        try {
+            awaitingVerdict = false;
+            verdictReady.signalAll();
+        } finally {
+            verdictLock.unlock();
+        }
+    }
+
+    /**
+     * Starts the player in actor mode (instead of running it on its own thread).
+     */
+    public void start() {
+        env.logger.info("actor player-" + id + " starting.");
+        if (!human && aiProfile.paced()) {
+            nextAiPressNanos = System.nanoTime();
+            scheduleAiPress();
+        }
+        else if (!human) post(AI_TICK);
+    }
+
+    // New Method
+    private void post(Integer message) { //adds a message to the mailbox and makes sure the mailbox will be drained
+        mailbox.offer(message);
+        if (raise(SCHEDULED)) {
+            env.executor.execute(this::drainMailbox);
+        }
+    }
+
+    // New Method
+    private void postLater(Integer message, long millis) {
+        if (!terminate) {
+            env.executor.schedule(() -> post(message), millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // New Method
+    private void drainMailbox() { //handles a batch of messages, then gives the scheduler thread to other players
+        for (int i = 0; i < MAILBOX_BATCH; i++) {
+            Integer message = mailbox.poll();
+            if (message == null) break;
+            if (!terminate) handle(message);
+        }
+        clear(SCHEDULED);
+        if (!mailbox.isEmpty() && raise(SCHEDULED)) {
+            env.executor.execute(this::drainMailbox);
+        }
+    }
+
+    // New Method
+    private void handle(Integer message) {
+        if (message >= 0) {
+            onKey(message);
+        }
+        else if (message.equals(AI_TICK) && aiProfile.paced()) {
+            int aiSlot = !claimPending && acceptsKeys() ? aiStrategy.nextSlot(aiIdle()) : -1; //no key presses while the player is frozen or the table is locked
+            if (aiSlot >= 0) onKey(aiSlot);
+            scheduleAiPress();
+        }
+        else if (message.equals(AI_TICK)) {
+            if (claimPending || (flags.get() & (POINT | PENALTY)) != 0) {
+                aiSuspended = true; //resumed once the verdict and freeze are over
+                return;
+            }
+            if (table.tableLock.get()) {
+                postLater(AI_TICK, 1); //the dealer is changing the table
+                return;
+            }
+            int aiSlot = aiStrategy.nextSlot(aiIdle());
+            if (aiSlot >= 0) {
+                onKey(aiSlot);
+                post(AI_TICK);
+            }
+            else postLater(AI_TICK, 1); //the AI is thinking
+        }
+        else if (message.equals(VERDICT)) {
+            if (!claimPending) {
+                resumeAi(); //the round ended, or the verdict was already handled
+                return;
+            }
+            claimPending = false;
+            if (flag(POINT)) {
+                env.ui.setScore(id, ++score);
+                freeze(env.config.pointFreezeMillis);
+            }
+            else if (flag(PENALTY)) {
+                raise(AFTER_PENALTY);
+                freeze(env.config.penaltyFreezeMillis);
+            }
+            else {
+                resumeAi(); //the claim was dropped (or the round ended)
+            }
+        }
+        else if (message.equals(FREEZE_TICK)) {
+            if (freezeMillis > 0) {
+                env.ui.setFreeze(id, freezeMillis);
+                freezeMillis -= 1000;
+                postLater(FREEZE_TICK, 1000);
+                return;
+            }
+            env.ui.setFreeze(id, 0);
+            clear(POINT | PENALTY);
+            resumeAi();
+        }
+    }
+
+    // New Method
+    private void freeze(long millis) { //the actor's counterpart of the sleeping loops in point() and penalty()
+        freezeMillis = millis;
+        if (millis > 0) {
+            handle(FREEZE_TICK);
+            return;
+        }
+        clear(POINT | PENALTY);
+        resumeAi();
+    }
+
+    // New Method
+    boolean raise(int flag) { //sets a flag, returns true iff it was not already set (used by the dealer to hand out verdicts)
+        int current;
+        do {
+            current = flags.get();
+            if ((current & flag) != 0) return false;
+        } while (!flags.compareAndSet(current, current | flag));
+        return true;
+    }
+
+    // New Method
+    private void clear(int flag) {
+        flags.getAndUpdate(current -> current & ~flag);
+    }
+
+    // New Method
+    private boolean flag(int flag) {
+        return (flags.get() & flag) != 0;
+    }
+
+    // New Method
+    private void resumeAi() {
+        if (aiSuspended) {
+            aiSuspended = false;
+            post(AI_TICK);
+        }
+    }
+
+    // New Method
+    private void onKey(int slot) { //the actor's counterpart of act(), never blocks
+        if (claimPending || !acceptsKeys()) return;
+        if (toggleToken(slot)) {
+            Claim claim = createClaim();
+            if (claim != null && preValidate(claim) && dealer.checkSets.offer(claim)) { //at most one claim per player, so the queue has room
+                dealer.stats.claimSubmitted();
+                claimPending = true;
+                dealer.wakeUp(); //notify the delar he has a job
+            }
         }
     }
 }
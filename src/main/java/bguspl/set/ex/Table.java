@@ -3,12 +3,10 @@ package bguspl.set.ex;
 import bguspl.set.Env;
 
 import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Objects;
+import java.util.Random;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * This class contains the data that is visible to the player.
@@ -35,9 +33,17 @@ public class Table {
     /**
      *  New fields we added
      */
-    protected LinkedList<Integer> openSlots;// contains which spots are available to place a card
-    protected int[][] playersTokens; // contains on which slots players have placed their tokens
+    protected final int[] openSlots; // which spots are available to place a card, filled from the last one back
+    protected int openCount; // the number of open slots (the first openCount entries of openSlots)
+    private int cardCount; // the number of cards on the table
+    protected final AtomicLongArray playersTokens; // per player, a bitmask of the slots the player has placed tokens on (slotWords longs each, flattened)
+    protected final AtomicLongArray slotTokens; // per slot, a bitmask of the players that have placed tokens on it (playerWords longs each, flattened)
     protected AtomicBoolean tableLock = new AtomicBoolean(false); // a lock to prevent multiple threads from accessing the table at the same time
+    private final int slotWords; // the number of longs in a player's slot bitmask
+    private final int playerWords; // the number of longs in a slot's player bitmask
+    private volatile TableSnapshot snapshot; // the last consistent view of the table published by the dealer
+    private final HintEngine hintEngine; // finds the sets on the table in the background
+    private final Random random; // the order in which open slots are filled
 
     /**
      * Constructor for testing.
@@ -51,16 +57,20 @@ public class Table {
         this.env = env;
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
-        this.openSlots = new LinkedList<Integer>();
+        this.openSlots = new int[env.config.tableSize];
         for (int i = 0; i < env.config.tableSize; i++) {
-            openSlots.add(i);
-        }
-        playersTokens = new int[env.config.players][env.config.featureSize];
-        for (int i = 0; i < env.config.players; i++) {
-            for (int j = 0; j < env.config.featureSize; j++) {
-                playersTokens[i][j] = -1;
-            }
+            openSlots[openCount++] = i;
         }
+        for (Integer card : slotToCard)
+            if (card != null)
+                ++cardCount;
+        slotWords = (env.config.tableSize + 63) >>> 6;
+        playerWords = (env.config.players + 63) >>> 6;
+        playersTokens = new AtomicLongArray(env.config.players * slotWords);
+        slotTokens = new AtomicLongArray(env.config.tableSize * playerWords);
+        snapshot = new TableSnapshot(0, slotToCard);
+        hintEngine = new HintEngine(env);
+        random = env.random.table();
     }
 
     /**
@@ -75,15 +85,84 @@ public class Table {
 
     /**
      * This method prints all possible legal sets of cards that are currently on the table.
+     * The sets are found and printed by the hint engine's background thread, so this never blocks.
      */
     public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
-            StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
-            List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
-            int[][] features = env.util.cardsToFeatures(set);
-            System.out.println(sb.append("slots: ").append(slots).append(" features: ").append(Arrays.deepToString(features)));
-        });
+        hintEngine.request(snapshot);
+    }
+
+    /**
+     * @return - the hint engine of this table.
+     */
+    public HintEngine hintEngine() {
+        return hintEngine;
+    }
+
+    /**
+     * @return - the last snapshot of the table published by the dealer (never blocks).
+     */
+    public TableSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return - the version of the last snapshot published by the dealer.
+     */
+    public long version() {
+        return snapshot.version;
+    }
+
+    /**
+     * Publishes the current cards on the table as a new snapshot with a higher version.
+     * Called by the dealer after each batch of changes, while it holds the table lock.
+     */
+    protected void publishSnapshot() {
+        snapshot = new TableSnapshot(snapshot.version + 1, slotToCard);
+    }
+
+    /**
+     * Shuffles the open slots, so cards are placed in a random (seeded) order.
+     */
+    protected void shuffleOpenSlots() {
+        for (int i = openCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int slot = openSlots[i];
+            openSlots[i] = openSlots[j];
+            openSlots[j] = slot;
+        }
+    }
+
+    /**
+     * @return - true iff there is a slot with no card.
+     */
+    protected boolean hasOpenSlot() {
+        return openCount > 0;
+    }
+
+    /**
+     * Removes the next slot to be filled from the open slots. The open slots are shuffled before every refill, so
+     * taking the last one is as random as taking the first, without shifting the others.
+     *
+     * @return - the slot.
+     * @pre - hasOpenSlot()
+     */
+    protected int takeOpenSlot() {
+        return openSlots[--openCount];
+    }
+
+    /**
+     * Puts the cards of a checkpoint on the (empty) table, before the game starts.
+     *
+     * @param cards - the card in every slot (-1 for none).
+     */
+    protected void restoreCards(int[] cards) {
+        openCount = 0;
+        for (int slot = 0; slot < cards.length; slot++) {
+            if (cards[slot] < 0) openSlots[openCount++] = slot;
+            else placeCard(cards[slot], slot);
+        }
+        shuffleOpenSlots();
+        publishSnapshot();
     }
 
     /**
@@ -92,11 +171,7 @@ public class Table {
      * @return - the number of cards on the table.
      */
     public int countCards() {
-        int cards = 0;
-        for (Integer card : slotToCard) 
-            if (card != null)
-                ++cards;
-        return cards;
+        return cardCount;
     }
 
     /**
@@ -112,6 +187,7 @@ public class Table {
         } catch (InterruptedException ignored) {}
 
          // TODO implement
+        if (slotToCard[slot] == null) ++cardCount;
         cardToSlot[card] = slot;
         slotToCard[slot] = card;
         env.ui.placeCard(card, slot);
@@ -130,8 +206,9 @@ public class Table {
         int card = slotToCard[slot];
         slotToCard[slot] = null;
         cardToSlot[card] = null;
+        --cardCount;
         removeSlotTokens(slot); //when a card is being removed, it's tokens being removed as well
-        openSlots.addLast(slot); //the slot is now open so it should been added to the list
+        openSlots[openCount++] = slot; //the slot is now open so it should been added to the list
         env.ui.removeCard(slot);
     }
 
@@ -142,12 +219,12 @@ public class Table {
      */
     public void placeToken(int player, int slot) {
         // TODO implement
-        for (int i = 0; i < env.config.featureSize; i++) {
-            if (playersTokens[player][i] == -1) {
-                playersTokens[player][i] = slot;
-                env.ui.placeToken(player, slot);
-                break;
-            }
+        int word = player * slotWords + (slot >>> 6);
+        long bit = 1L << slot;
+        if ((playersTokens.get(word) & bit) == 0 && tokenCount(player) < env.config.featureSize) {
+            setBits(playersTokens, word, bit); //the player's bit first, then the slot's (see removeSlotTokens)
+            setBits(slotTokens, slot * playerWords + (player >>> 6), 1L << player);
+            env.ui.placeToken(player, slot);
         }
     }
 
@@ -159,33 +236,36 @@ public class Table {
      */
     public boolean removeToken(int player, int slot) {
         // TODO implement
-        for (int i = 0; i < env.config.featureSize; i++) {
-            if (playersTokens[player][i] == slot) {
-                playersTokens[player][i] = -1;
-                env.ui.removeToken(player, slot);
-                return true;
-            }
-        }
-        return false;
+        int word = player * slotWords + (slot >>> 6);
+        long bit = 1L << slot;
+        if ((clearBits(playersTokens, word, bit) & bit) == 0)
+            return false;
+        clearBits(slotTokens, slot * playerWords + (player >>> 6), 1L << player);
+        env.ui.removeToken(player, slot);
+        return true;
     }
 
+    /**
+     * Removes all the tokens from the table, one slot at a time. This is not a single write: players check the table
+     * lock before they place a token, not while they do, so a token may be placed during the clear. Swapping in fresh
+     * bitmasks could lose such a token in the discarded ones (shown on the UI, but not counted), while clearing every
+     * slot as in removeSlotTokens leaves it either on its slot or nowhere. It is called only when the cards are
+     * reshuffled, and then every card is removed (and its slot cleared) anyway, so it does not change that cost.
+     */
     public void removeAllTokens(){
         env.ui.removeTokens();
-        for (int i = 0; i < playersTokens.length; i++){
-            for (int j = 0; j < env.config.featureSize; j++){
-                if (playersTokens[i][j] != -1){
-                    playersTokens[i][j] = -1;
-                }
-            }
-        }
+        for (int slot = 0; slot < env.config.tableSize; slot++)
+            clearSlot(slot);
     }
 
     //New Method
     public void removePlayerTokens(int player) { //removes a specific player's tokens
-        for (int i = 0; i < env.config.featureSize; i++){
-            if (playersTokens[player][i] != -1){
-                env.ui.removeToken(player, playersTokens[player][i]);
-                playersTokens[player][i] = -1;
+        int base = player * slotWords;
+        for (int word = 0; word < slotWords; word++) {
+            for (long bits = playersTokens.getAndSet(base + word, 0); bits != 0; bits &= bits - 1) {
+                int slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+                clearBits(slotTokens, slot * playerWords + (player >>> 6), 1L << player);
+                env.ui.removeToken(player, slot);
             }
         }
     }
@@ -193,13 +273,60 @@ public class Table {
     //New Method
     public void removeSlotTokens(int slot) { //removes all the tokens from a specific slot
         env.ui.removeTokens(slot);
-        for (int i = 0; i < playersTokens.length; i++){
-            for (int j = 0; j < env.config.featureSize; j++){
-                if (playersTokens[i][j] == slot){
-                    playersTokens[i][j] = -1;
-                }
+        clearSlot(slot);
+    }
+
+    /**
+     * Removes the tokens of all the players from a slot (called by the dealer, while players may place and remove
+     * their own tokens). A player sets its own bit before the slot's bit, and the slot's word is cleared here before
+     * the players' bits, so a token placed at the same time ends up either on the slot or nowhere, never in the
+     * player's bitmask alone.
+     */
+    private void clearSlot(int slot) {
+        int base = slot * playerWords;
+        long bit = 1L << slot;
+        for (int word = 0; word < playerWords; word++) {
+            for (long bits = slotTokens.getAndSet(base + word, 0); bits != 0; bits &= bits - 1) {
+                int player = (word << 6) + Long.numberOfTrailingZeros(bits);
+                clearBits(playersTokens, player * slotWords + (slot >>> 6), bit);
             }
         }
-        
+    }
+
+    /**
+     * Atomically sets/clears bits of a word of a bitmask shared by several threads.
+     *
+     * @return - the word before.
+     */
+    private static long setBits(AtomicLongArray bitmask, int word, long bits) {
+        return bitmask.getAndAccumulate(word, bits, (current, set) -> current | set);
+    }
+
+    private static long clearBits(AtomicLongArray bitmask, int word, long bits) {
+        return bitmask.getAndAccumulate(word, bits, (current, cleared) -> current & ~cleared);
+    }
+
+    //New Method
+    public int tokenCount(int player) { //the number of tokens a player has on the table (the bits of its slot bitmask, so it never drifts from them)
+        int count = 0;
+        for (int word = player * slotWords, end = word + slotWords; word < end; word++)
+            count += Long.bitCount(playersTokens.get(word));
+        return count;
+    }
+
+    //New Method
+    public boolean hasToken(int player, int slot) {
+        return (playersTokens.get(player * slotWords + (slot >>> 6)) & (1L << slot)) != 0;
+    }
+
+    //New Method
+    public int[] tokenSlots(int player) { //the slots a player has placed tokens on, in ascending order
+        int base = player * slotWords;
+        int[] slots = new int[env.config.featureSize];
+        int i = 0;
+        for (int word = 0; word < slotWords && i < slots.length; word++)
+            for (long bits = playersTokens.get(base + word); bits != 0 && i < slots.length; bits &= bits - 1)
+                slots[i++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+        return i == slots.length ? slots : Arrays.copyOf(slots, i);
     }
 }
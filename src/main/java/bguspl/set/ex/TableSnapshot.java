@@ -0,0 +1,79 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+
+/**
+ * An immutable view of the cards on the table, as published by the dealer.
+ *
+ * @inv version >= 0
+ * @inv card(x) == -1 iff there was no card in slot x when the snapshot was taken
+ */
+public final class TableSnapshot {
+
+    /**
+     * The table version this snapshot was taken at (increases every time the dealer changes the table).
+     */
+    public final long version;
+
+    /**
+     * Mapping between a slot and the card placed in it (-1 if none).
+     */
+    private final int[] slotToCard;
+
+    /**
+     * The number of cards in the snapshot.
+     */
+    private final int cardCount;
+
+    TableSnapshot(long version, Integer[] slotToCard) {
+        this.version = version;
+        this.slotToCard = new int[slotToCard.length];
+        int count = 0;
+        for (int slot = 0; slot < slotToCard.length; slot++) {
+            Integer card = slotToCard[slot];
+            this.slotToCard[slot] = card == null ? -1 : card;
+            if (card != null) ++count;
+        }
+        this.cardCount = count;
+    }
+
+    /**
+     * @param slot - the slot number.
+     * @return - the card in the slot, or -1 if the slot was empty.
+     */
+    public int card(int slot) {
+        return slotToCard[slot];
+    }
+
+    /**
+     * @return - the number of slots on the table.
+     */
+    public int tableSize() {
+        return slotToCard.length;
+    }
+
+    /**
+     * @return - the number of cards on the table.
+     */
+    public int countCards() {
+        return cardCount;
+    }
+
+    /**
+     * @return - the cards on the table, ordered by slot.
+     */
+    public int[] cards() {
+        int[] cards = new int[cardCount];
+        int i = 0;
+        for (int card : slotToCard)
+            if (card != -1) cards[i++] = card;
+        return cards;
+    }
+
+    /**
+     * @return - a copy of the slot to card mapping (-1 for empty slots).
+     */
+    public int[] slotToCard() {
+        return Arrays.copyOf(slotToCard, slotToCard.length);
+    }
+}
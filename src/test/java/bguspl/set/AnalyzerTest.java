@@ -0,0 +1,45 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnalyzerTest {
+
+    private Analyzer analyzer;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        properties.put("Rows", "3");
+        properties.put("Columns", "4");
+        properties.put("Seed", "7");
+        analyzer = new Analyzer(new Config(Logger.getAnonymousLogger(), properties));
+    }
+
+    @Test
+    void analyze_DealsMatchTheKnownOdds() {
+        Analyzer.Result result = analyzer.analyze(200_000, 0);
+
+        // every 2 cards have exactly one third card, so a table of 12 out of 81 cards has C(12,3)/79 sets on average
+        assertEquals(220.0 / 79, result.setsPerTable(), 0.03);
+        // about 1 in 31 tables of 12 cards have no set
+        assertEquals(0.032, result.noSetProbability(), 0.004);
+    }
+
+    @Test
+    void analyze_GamesEndAndAreRepeatable() {
+        Analyzer.Result result = analyzer.analyze(0, 2_000);
+
+        assertTrue(result.roundsPerGame() >= 1);
+        assertTrue(result.setsPerGame() > 20 && result.setsPerGame() <= 27, "sets per game: " + result.setsPerGame());
+        assertEquals(result.roundsPerGame(), analyzer.analyze(0, 2_000).roundsPerGame());
+    }
+}
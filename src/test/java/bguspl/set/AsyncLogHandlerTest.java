@@ -0,0 +1,93 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncLogHandlerTest {
+
+    @TempDir
+    Path dir;
+
+    private static final Formatter MESSAGE_ONLY = new Formatter() {
+        @Override
+        public String format(LogRecord record) {
+            return formatMessage(record) + "\n";
+        }
+    };
+
+    private static LogRecord record(String message, Object... parameters) {
+        LogRecord record = new LogRecord(Level.SEVERE, message);
+        record.setParameters(parameters);
+        return record;
+    }
+
+    @Test
+    void flush_WritesTheParameterisedRecordsInOrder() throws IOException {
+        Path file = dir.resolve("game.log");
+        AsyncLogHandler handler = new AsyncLogHandler(file, 16);
+        handler.setFormatter(MESSAGE_ONLY);
+        handler.publish(record("placing card {0,number,#} in slot {1,number,#}", 7, 3));
+        handler.publish(record("setting player {0,number,#} freeze to {1,number,#}", 1, 1500L));
+
+        assertEquals(0, Files.size(file));
+
+        handler.flush();
+
+        assertEquals(List.of("placing card 7 in slot 3", "setting player 1 freeze to 1500"), Files.readAllLines(file));
+        handler.close();
+    }
+
+    @Test
+    void publish_DropsAndCountsTheRecordsThatDoNotFit() throws IOException {
+        Path file = dir.resolve("game.log");
+        AsyncLogHandler handler = new AsyncLogHandler(file, 4);
+        handler.setFormatter(MESSAGE_ONLY);
+        for (int i = 0; i < 6; i++)
+            handler.publish(record("record {0}", i));
+        handler.flush();
+
+        assertEquals(2, handler.dropped());
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(List.of("record 0", "record 1", "record 2", "record 3"), lines.subList(0, 4));
+        assertTrue(lines.get(4).contains("2 records dropped"));
+
+        handler.publish(record("record {0}", 6));
+        handler.flush();
+
+        assertEquals("record 6", Files.readAllLines(file).get(5));
+        handler.close();
+    }
+
+    @Test
+    void close_WritesEveryRecordOfConcurrentLoggers() throws Exception {
+        Path file = dir.resolve("game.log");
+        AsyncLogHandler handler = AsyncLogHandler.start(file, 1 << 16);
+        handler.setFormatter(MESSAGE_ONLY);
+        Thread[] loggers = new Thread[4];
+        for (int t = 0; t < loggers.length; t++) {
+            int logger = t;
+            loggers[t] = new Thread(() -> {
+                for (int i = 0; i < 5000; i++)
+                    handler.publish(record("logger {0} record {1,number,#}", logger, i));
+            });
+            loggers[t].start();
+        }
+        for (Thread logger : loggers)
+            logger.join();
+        handler.close();
+
+        assertEquals(0, handler.dropped());
+        assertEquals(20000, Files.readAllLines(file).size());
+    }
+}
@@ -0,0 +1,101 @@
+package bguspl.set;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Compares the card atlas with loading every card through an ImageIcon and scaling it on every paint: the startup time
+ * to the first painted frame (offscreen, into a BufferedImage), and the steady-state time to paint the cards of a
+ * whole-grid frame, for cells of the images' own size, half of it, and one and a half times it.
+ * Startup is measured once per way of loading the cards, since the toolkit caches the images it loaded.
+ * Run with: mvn test-compile && java -Djava.awt.headless=true -cp target/classes:target/test-classes bguspl.set.CardAtlasBenchmark [frames]
+ */
+public class CardAtlasBenchmark {
+
+    public static void main(String[] args) {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        Logger logger = Logger.getLogger("CardAtlasBenchmark");
+        logger.setUseParentHandlers(false);
+
+        Config config = config(logger, 258, 167);
+        int[] cards = new Random(0).ints(config.tableSize, 0, config.deckSize).toArray();
+        BufferedImage image = new BufferedImage(config.columns * config.cellWidth, config.rows * config.cellHeight, BufferedImage.TYPE_INT_RGB);
+        image.createGraphics().drawImage(new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB), 0, 0, null); // load java2d before measuring
+
+        long start = System.nanoTime();
+        GamePanel panel = panel(config, cards);
+        paintPanel(panel, image);
+        double atlasStartup = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        Image[] icons = loadIcons(config);
+        paintIcons(config, icons, cards, image);
+        double iconsStartup = (System.nanoTime() - start) / 1e6;
+        System.out.printf("startup to the first frame (%d card images): icons %.1f ms -> atlas %.1f ms (%d processors)%n",
+                config.deckSize + 1, iconsStartup, atlasStartup, Runtime.getRuntime().availableProcessors());
+
+        for (int[] cell : new int[][]{{258, 167}, {129, 84}, {387, 250}}) {
+            config = config(logger, cell[0], cell[1]);
+            image = new BufferedImage(config.columns * config.cellWidth, config.rows * config.cellHeight, BufferedImage.TYPE_INT_RGB);
+            panel = panel(config, cards);
+            for (int frame = 0; frame < frames / 4; frame++) { // warm up
+                paintIcons(config, icons, cards, image);
+                paintPanel(panel, image);
+            }
+            start = System.nanoTime();
+            for (int frame = 0; frame < frames; frame++)
+                paintIcons(config, icons, cards, image);
+            double iconsFrame = (System.nanoTime() - start) / 1e6 / frames;
+            start = System.nanoTime();
+            for (int frame = 0; frame < frames; frame++)
+                paintPanel(panel, image);
+            double atlasFrame = (System.nanoTime() - start) / 1e6 / frames;
+            System.out.printf("%dx%d cells: whole-grid frame: icons %.3f ms -> atlas %.3f ms%n", config.cellWidth, config.cellHeight, iconsFrame, atlasFrame);
+        }
+    }
+
+    private static Config config(Logger logger, int cellWidth, int cellHeight) {
+        Properties properties = new Properties();
+        properties.put("CellWidth", Integer.toString(cellWidth));
+        properties.put("CellHeight", Integer.toString(cellHeight));
+        return new Config(logger, properties);
+    }
+
+    private static GamePanel panel(Config config, int[] cards) {
+        GamePanel panel = new GamePanel(config);
+        panel.setSize(panel.getPreferredSize());
+        for (int slot = 0; slot < cards.length; slot++)
+            panel.placeCard(slot, cards[slot]);
+        return panel;
+    }
+
+    /**
+     * Loads the cards the way the table grid used to: one ImageIcon per card, one after the other.
+     */
+    private static Image[] loadIcons(Config config) {
+        Image[] icons = new Image[config.deckSize + 1];
+        for (int card = 0; card < config.deckSize; card++)
+            icons[card] = new ImageIcon(CardAtlasBenchmark.class.getClassLoader().getResource(
+                    "cards/" + UserInterfaceSwing.intInBaseToPaddedString(card, config.featureCount, config.featureSize) + ".png")).getImage();
+        icons[config.deckSize] = new ImageIcon(CardAtlasBenchmark.class.getClassLoader().getResource("cards/empty_card.png")).getImage();
+        return icons;
+    }
+
+    private static void paintIcons(Config config, Image[] icons, int[] cards, BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        for (int slot = 0; slot < cards.length; slot++)
+            g.drawImage(icons[cards[slot]], (slot % config.columns) * config.cellWidth, (slot / config.columns) * config.cellHeight,
+                    config.cellWidth, config.cellHeight, null);
+        g.dispose();
+    }
+
+    private static void paintPanel(GamePanel panel, BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        g.setClip(0, 0, image.getWidth(), image.getHeight());
+        panel.paintComponent(g); // the cards only (not the token labels on top)
+        g.dispose();
+    }
+}
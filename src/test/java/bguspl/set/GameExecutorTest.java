@@ -0,0 +1,26 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameExecutorTest {
+
+    @Test
+    void execute_RunsTasksUntilShutdownThenDropsThem() throws InterruptedException {
+        GameExecutor executor = new GameExecutor(false, 1);
+        CountDownLatch ran = new CountDownLatch(2);
+
+        assertTrue(executor.execute(ran::countDown));
+        assertTrue(executor.schedule(ran::countDown, 1, TimeUnit.MILLISECONDS));
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+
+        executor.shutdown();
+        assertFalse(executor.execute(() -> {})); // as a player posting a message while its game is being stopped
+        assertFalse(executor.schedule(() -> {}, 1, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,53 @@
+package bguspl.set;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Runs many games at once on one host, and reports the aggregate throughput.
+ * Run with: mvn test-compile && java -cp target/classes:target/test-classes bguspl.set.GameHostBenchmark [games] [seconds]
+ */
+public class GameHostBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Properties defaults = new Properties();
+        defaults.put("LogLevel", "OFF");
+        defaults.put("HumanPlayers", "0");
+        defaults.put("ComputerPlayers", "4");
+        defaults.put("TableDelaySeconds", "0");
+        defaults.put("PlayerActors", "True");
+        defaults.put("AiProfile", "Poisson");
+        defaults.put("AiActionsPerSecond", "5");
+        defaults.put("AiStrategy", "Sets");
+        defaults.put("AiThinkSeconds", "0.5");
+        defaults.put("PointFreezeSeconds", "1");
+        defaults.put("PenaltyFreezeSeconds", "3");
+        defaults.put("TurnTimeoutSeconds", "10");
+        Logger logger = Logger.getLogger("GameHostBenchmark");
+        logger.setUseParentHandlers(false);
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+        GameHost host = new GameHost(logger, defaults, runtime.availableProcessors());
+        long start = System.nanoTime();
+        for (int i = 0; i < games; i++)
+            host.start(new Properties());
+        System.out.printf("started %d games in %.0fms%n", games, (System.nanoTime() - start) / 1e6);
+
+        for (int second = 1; second <= seconds; second++) {
+            Thread.sleep(1000);
+            if (second % 5 == 0 || second == seconds) System.out.println(host);
+        }
+        System.gc();
+        System.out.printf("heap used by the games: ~%.1f MB%n", (runtime.totalMemory() - runtime.freeMemory() - usedBefore) / 1e6);
+
+        start = System.nanoTime();
+        host.shutdown();
+        System.out.printf("stopped all games in %.0fms%n", (System.nanoTime() - start) / 1e6);
+        System.out.println(host);
+    }
+}
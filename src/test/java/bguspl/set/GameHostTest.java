@@ -0,0 +1,90 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameHostTest {
+
+    private GameHost host;
+
+    @BeforeEach
+    void setUp() {
+        Properties defaults = new Properties();
+        defaults.put("LogLevel", "OFF");
+        defaults.put("HumanPlayers", "0");
+        defaults.put("ComputerPlayers", "2");
+        defaults.put("TableDelaySeconds", "0");
+        defaults.put("PlayerActors", "True");
+        defaults.put("AiProfile", "Fixed");
+        defaults.put("AiActionsPerSecond", "100");
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        host = new GameHost(logger, defaults, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        host.shutdown();
+    }
+
+    @Test
+    void start_RunsIndependentGames() throws InterruptedException {
+        Properties fourPlayers = new Properties();
+        fourPlayers.put("ComputerPlayers", "4");
+        GameSession first = host.start(new Properties());
+        GameSession second = host.start(fourPlayers);
+
+        assertNotEquals(first.id, second.id);
+        assertSame(first, host.game(first.id));
+        assertSame(first.env.util, second.env.util);
+        assertEquals(2, first.scores().length);
+        assertEquals(4, second.scores().length);
+        assertEquals(2, host.running());
+
+        host.stop(first.id);
+        assertEquals(GameSession.State.STOPPED, first.state());
+        assertTrue(first.awaitEnd(10_000));
+        assertEquals(GameSession.State.RUNNING, second.state());
+        assertEquals(1, host.running());
+        assertEquals(1, host.ended());
+    }
+
+    @Test
+    void start_NeverPrintsHints() {
+        Properties hints = new Properties();
+        hints.put("Hints", "True");
+
+        assertFalse(host.start(hints).env.config.hints);
+    }
+
+    @Test
+    void remove_OnlyEndedGames() throws InterruptedException {
+        GameSession game = host.start(new Properties());
+
+        assertNull(host.remove(game.id));
+        game.stop();
+        assertSame(game, host.remove(game.id));
+        assertNull(host.game(game.id));
+        assertTrue(host.totals().claims() >= game.stats().claims());
+    }
+
+    @Test
+    void start_RejectsOtherCards() {
+        Properties otherCards = new Properties();
+        otherCards.put("FeatureCount", "3");
+
+        assertThrows(IllegalArgumentException.class, () -> host.start(otherCards));
+    }
+}
@@ -0,0 +1,58 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Measures the heap retained by idle games (human players that never press a key), by default with 2 and 100 players,
+ * and how many such games would fit in the maximum heap.
+ * Run with: mvn test-compile && java -Xmx1g -cp target/classes:target/test-classes bguspl.set.GameMemoryReport [games] [players ...]
+ * For example, 10000 idle 2-player games: java -Xmx1g -cp target/classes:target/test-classes bguspl.set.GameMemoryReport 10000 2
+ */
+public class GameMemoryReport {
+
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int[] playerCounts = args.length > 1 ? new int[args.length - 1] : new int[]{2, 100};
+        for (int i = 1; i < args.length; i++)
+            playerCounts[i - 1] = Integer.parseInt(args[i]);
+        for (int players : playerCounts)
+            for (String actors : new String[]{"False", "True"})
+                report(games, players, actors);
+    }
+
+    private static void report(int games, int players, String actors) throws InterruptedException {
+        Properties defaults = new Properties();
+        defaults.put("LogLevel", "OFF");
+        defaults.put("HumanPlayers", Integer.toString(players));
+        defaults.put("ComputerPlayers", "0");
+        defaults.put("TableDelaySeconds", "0");
+        defaults.put("PlayerActors", actors);
+        defaults.put("TurnTimeoutSeconds", "3600");
+        Logger logger = Logger.getLogger("GameMemoryReport");
+        logger.setUseParentHandlers(false);
+        GameHost host = new GameHost(logger, defaults, Runtime.getRuntime().availableProcessors());
+
+        long before = usedHeap();
+        List<GameSession> started = new ArrayList<>();
+        for (int i = 0; i < games; i++)
+            started.add(host.start(new Properties()));
+        Thread.sleep(1000); // let every dealer deal and go to sleep
+        long after = usedHeap();
+        long perGame = Math.max(1, (after - before) / games);
+        System.out.printf("%-4d players, actors %-5s: %,8d bytes per idle game (%d games), about %,d games fit in %,d MB%n",
+                players, actors, perGame, started.size(), Runtime.getRuntime().maxMemory() / perGame, Runtime.getRuntime().maxMemory() >> 20);
+        host.shutdown();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,57 @@
+package bguspl.set;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Paints the table grid offscreen (into a BufferedImage) for growing grids, and reports the paint time per frame when
+ * the whole grid is dirty (what every card change used to cost) and when a single cell is dirty.
+ * Run with: mvn test-compile && java -Djava.awt.headless=true -cp target/classes:target/test-classes bguspl.set.GamePaintBenchmark [frames]
+ */
+public class GamePaintBenchmark {
+
+    public static void main(String[] args) {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        Logger logger = Logger.getLogger("GamePaintBenchmark");
+        logger.setUseParentHandlers(false);
+
+        for (int[] size : new int[][]{{3, 4}, {6, 8}, {9, 12}, {12, 16}}) {
+            Properties properties = new Properties();
+            properties.put("Rows", Integer.toString(size[0]));
+            properties.put("Columns", Integer.toString(size[1]));
+            Config config = new Config(logger, properties);
+            GamePanel panel = new GamePanel(config);
+            panel.setSize(panel.getPreferredSize());
+            Random random = new Random(0);
+            for (int slot = 0; slot < config.tableSize; slot++)
+                panel.placeCard(slot, random.nextInt(config.deckSize));
+
+            BufferedImage image = new BufferedImage(panel.getWidth(), panel.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Rectangle full = new Rectangle(panel.getSize());
+            Rectangle cell = new Rectangle(config.cellWidth, config.cellHeight, config.cellWidth, config.cellHeight);
+            paint(panel, image, full, frames / 4); // warm up
+            paint(panel, image, cell, frames);
+            double fullMillis = paint(panel, image, full, frames);
+            double cellMillis = paint(panel, image, cell, frames);
+            System.out.printf("%2dx%-2d grid (%4dx%-4d px): whole grid %7.3f ms/frame, one dirty cell %6.3f ms/frame (%.0fx)%n",
+                    config.rows, config.columns, panel.getWidth(), panel.getHeight(), fullMillis, cellMillis, fullMillis / cellMillis);
+        }
+    }
+
+    /**
+     * @return - the average time to paint a frame with the given clip, in milliseconds.
+     */
+    private static double paint(GamePanel panel, BufferedImage image, Rectangle clip, int frames) {
+        long start = System.nanoTime();
+        for (int frame = 0; frame < frames; frame++) {
+            Graphics2D g = image.createGraphics();
+            g.setClip(clip);
+            panel.paint(g);
+            g.dispose();
+        }
+        return (System.nanoTime() - start) / 1e6 / frames;
+    }
+}
@@ -0,0 +1,67 @@
+package bguspl.set;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Places and removes tokens from several threads, as players do, through the user interface of a game without a
+ * window: the UserInterfaceDecorator (logging into a temporary file as Main does, and spinning) in front of nothing,
+ * as a headless game used to run, and the HeadlessUserInterface. Reports the time per call on the calling threads.
+ * Run with: mvn test-compile && java -cp target/classes:target/test-classes bguspl.set.HeadlessBenchmark [threads] [calls per thread]
+ */
+public class HeadlessBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int calls = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        Path dir = Files.createTempDirectory("set-headless");
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        AsyncLogHandler handler = AsyncLogHandler.start(dir.resolve("game.log"), AsyncLogHandler.DEFAULT_CAPACITY);
+        logger.addHandler(handler);
+        Main.setLoggerLevelAndFormat(logger, Level.ALL, "[%1$tT.%1$tL] [%2$-7s] %3$s%n");
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(threads));
+        Config config = new Config(logger, properties);
+
+        for (int round = 0; round < 2; round++) { // the first round warms up
+            double decorated = run(new UserInterfaceDecorator(logger, new UtilImpl(config), null), threads, calls);
+            handler.flush(); // so the log writer does not compete with the next run
+            HeadlessUserInterface headless = new HeadlessUserInterface();
+            double counted = run(headless, threads, calls);
+            if (round == 0) continue;
+            System.out.printf("%d threads x %d calls: decorator without a user interface %.1f ns/call -> headless %.1f ns/call (%s)%n",
+                    threads, calls, decorated, counted, headless);
+        }
+        handler.close();
+    }
+
+    /**
+     * @return - the average time per call on the calling threads in nanoseconds.
+     */
+    private static double run(UserInterface ui, int threads, int calls) throws InterruptedException {
+        long[] callNanos = new long[threads];
+        Thread[] players = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int player = t;
+            players[t] = new Thread(() -> {
+                long start = System.nanoTime();
+                for (int i = 0; i < calls; i += 2) {
+                    ui.placeToken(player, i % 12);
+                    ui.removeToken(player, i % 12);
+                }
+                callNanos[player] = System.nanoTime() - start;
+            });
+            players[t].start();
+        }
+        for (Thread player : players)
+            player.join();
+        long sum = 0;
+        for (long nanos : callNanos) sum += nanos;
+        return (double) sum / threads / calls;
+    }
+}
@@ -0,0 +1,49 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import static bguspl.set.HeadlessUserInterface.Call.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HeadlessUserInterfaceTest {
+
+    @Test
+    void count_CountsEveryCallPerMethod() {
+        HeadlessUserInterface ui = new HeadlessUserInterface();
+        ui.placeCard(7, 3);
+        ui.placeCard(8, 4);
+        ui.placeToken(1, 3);
+        ui.removeTokens(3);
+        ui.removeTokens();
+        ui.setScore(1, 1);
+        ui.announceWinner(new int[]{1});
+
+        assertEquals(2, ui.count(PLACE_CARD));
+        assertEquals(1, ui.count(REMOVE_SLOT_TOKENS));
+        assertEquals(1, ui.count(REMOVE_TOKENS));
+        assertEquals(0, ui.count(REMOVE_CARD));
+        assertEquals(7, ui.total());
+        assertEquals("7 calls: place_card 2, place_token 1, remove_tokens 1, remove_slot_tokens 1, score 1, announce_winner 1", ui.toString());
+    }
+
+    @Test
+    void count_LosesNoCallsOfConcurrentThreads() throws InterruptedException {
+        HeadlessUserInterface ui = new HeadlessUserInterface();
+        Thread[] players = new Thread[4];
+        for (int t = 0; t < players.length; t++) {
+            int player = t;
+            players[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ui.placeToken(player, i % 12);
+                    ui.removeToken(player, i % 12);
+                }
+            });
+            players[t].start();
+        }
+        for (Thread player : players)
+            player.join();
+
+        assertEquals(40_000, ui.count(PLACE_TOKEN));
+        assertEquals(40_000, ui.count(REMOVE_TOKEN));
+    }
+}
@@ -0,0 +1,76 @@
+package bguspl.set;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Records token events into a journal (in a temporary directory) from one and from several threads, and reports the
+ * time per event; then plays a game of computer players with a journal, and replays it as fast as possible.
+ * Run with: mvn test-compile && java -cp target/classes:target/test-classes bguspl.set.JournalBenchmark [events per thread] [seconds]
+ */
+public class JournalBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Logger logger = Logger.getLogger("JournalBenchmark");
+        logger.setUseParentHandlers(false);
+        Path dir = Files.createTempDirectory("set-journal");
+
+        for (int threads : new int[]{1, 1, 4}) { // the first run warms up
+            Properties properties = new Properties();
+            properties.put("LogLevel", "OFF");
+            properties.put("JournalFile", dir.resolve("tokens-" + threads + ".journal").toString());
+            properties.put("JournalSegmentMegabytes", "16");
+            Journal journal = new Journal(logger, new Config(logger, properties), null);
+            Thread[] recorders = new Thread[threads];
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int player = t;
+                recorders[t] = new Thread(() -> {
+                    for (int i = 0; i < events; i++) {
+                        if ((i & 1) == 0) journal.placeToken(player, i % 12);
+                        else journal.removeToken(player, i % 12);
+                    }
+                });
+                recorders[t].start();
+            }
+            for (Thread recorder : recorders)
+                recorder.join();
+            double nanos = (double) (System.nanoTime() - start) / ((long) events * threads);
+            journal.close();
+            JournalReplayer replayer = new JournalReplayer(properties.getProperty("JournalFile"));
+            start = System.nanoTime();
+            long replayed = replayer.replay(new HeadlessUserInterface(), 0);
+            double replayNanos = (double) (System.nanoTime() - start) / replayed;
+            System.out.printf("%d thread(s) x %d events: %.1f ns/event recorded (%d segments of 16 MB), replayed at %.1f ns/event%n",
+                    threads, events, nanos, replayed * Journal.RECORD_BYTES / (16 << 20) + 1, replayNanos);
+        }
+
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "8");
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("TurnTimeoutSeconds", "2");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("JournalFile", dir.resolve("game.journal").toString());
+        Config config = new Config(logger, properties);
+        Journal journal = new Journal(logger, config, null);
+        GameExecutor executor = new GameExecutor(config);
+        GameSession game = new GameSession(0, new Env(logger, config, journal, new UtilImpl(config), executor, journal));
+        game.start();
+        game.awaitEnd(seconds * 1000L);
+        game.stop();
+        executor.shutdown();
+        journal.close();
+        JournalReplayer replayer = new JournalReplayer(config.journalFile);
+        long start = System.nanoTime();
+        replayer.replay(new HeadlessUserInterface(), 0);
+        double replaySeconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("a game of 8 computer players for %ds: %s, replayed as fast as possible in %.3fs%n", seconds, replayer, replaySeconds);
+    }
+}
@@ -0,0 +1,127 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalTest {
+
+    @TempDir
+    Path dir;
+
+    private Config config(double segmentMegabytes) {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "2");
+        properties.put("ComputerPlayers", "1");
+        properties.put("Rows", "3");
+        properties.put("Columns", "4");
+        properties.put("JournalFile", dir.resolve("game.journal").toString());
+        properties.put("JournalSegmentMegabytes", Double.toString(segmentMegabytes));
+        return new Config(Logger.getAnonymousLogger(), properties);
+    }
+
+    @Test
+    void replay_FeedsTheRecordedCallsBackInOrder() throws IOException {
+        Config config = config(1);
+        UserInterfaceBatcherTest.RecordingUserInterface live = new UserInterfaceBatcherTest.RecordingUserInterface();
+        Journal journal = new Journal(Logger.getAnonymousLogger(), config, live);
+        journal.placeCard(7, 3);
+        journal.placeToken(1, 3);
+        journal.claimTaken(1, new int[]{7, 0, 80});
+        journal.claimVerified(1, true);
+        journal.removeToken(1, 3);
+        journal.removeTokens(3);
+        journal.removeCard(3);
+        journal.setFreeze(1, 1500);
+        journal.setScore(1, 1);
+        journal.setCountdown(2500, true);
+        journal.reshuffled(81);
+        journal.removeTokens();
+        journal.announceWinner(new int[]{0, 2});
+        journal.close();
+
+        JournalReplayer replayer = new JournalReplayer(config.journalFile);
+        UserInterfaceBatcherTest.RecordingUserInterface replayed = new UserInterfaceBatcherTest.RecordingUserInterface();
+        long events = replayer.replay(replayed, 0);
+
+        assertEquals(live.calls, replayed.calls);
+        assertEquals(13, events);
+        assertEquals(3, replayer.rows);
+        assertEquals(4, replayer.columns);
+        assertEquals(3, replayer.players);
+        assertEquals("13 events: 1 claims (0 stale), 1 points, 0 penalties, 1 reshuffles", replayer.toString());
+    }
+
+    @Test
+    void record_StartsANewSegmentWhenOneIsFull() throws IOException {
+        Config config = config(0.001); // room for 42 records per segment
+        Journal journal = new Journal(Logger.getAnonymousLogger(), config, null);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            journal.setScore(i % 3, i);
+            expected.add("setScore " + (i % 3) + " " + i);
+        }
+        journal.close();
+
+        assertTrue(Files.exists(Journal.segmentFile(config.journalFile, 2)));
+        UserInterfaceBatcherTest.RecordingUserInterface replayed = new UserInterfaceBatcherTest.RecordingUserInterface();
+        assertEquals(100, new JournalReplayer(config.journalFile).replay(replayed, 0));
+        assertEquals(expected, replayed.calls);
+    }
+
+    @Test
+    void record_WinnersFitInTheSmallestSegment() throws IOException {
+        assertEquals(64L * 1024 * 1024, config(0).journalSegmentBytes); // rejected by the config
+
+        Config config = config(128.0 / 1024 / 1024); // room for the header and the winners, if all three players won
+        Journal journal = new Journal(Logger.getAnonymousLogger(), config, null);
+        journal.setScore(0, 1);
+        journal.announceWinner(new int[]{0, 1, 2});
+        journal.announceWinner(new int[]{0, 1, 2, 3}); // more winners than players: dropped rather than rotating forever
+        journal.close();
+
+        assertTrue(Files.exists(Journal.segmentFile(config.journalFile, 1)));
+        assertFalse(Files.exists(Journal.segmentFile(config.journalFile, 2)));
+        UserInterfaceBatcherTest.RecordingUserInterface replayed = new UserInterfaceBatcherTest.RecordingUserInterface();
+        new JournalReplayer(config.journalFile).replay(replayed, 0);
+        assertEquals(List.of("setScore 0 1", "announceWinner [0, 1, 2]"), replayed.calls);
+    }
+
+    @Test
+    void replay_KeepsTheRecordedPace() throws IOException, InterruptedException {
+        Config config = config(1);
+        Journal journal = new Journal(Logger.getAnonymousLogger(), config, null);
+        journal.setScore(0, 1);
+        Thread.sleep(200);
+        journal.setScore(0, 2);
+        journal.close();
+
+        JournalReplayer replayer = new JournalReplayer(config.journalFile);
+        long start = System.nanoTime();
+        replayer.replay(new HeadlessUserInterface(), 1);
+        long recordedPace = System.nanoTime() - start;
+        start = System.nanoTime();
+        replayer.replay(new HeadlessUserInterface(), 4);
+        long fourTimesFaster = System.nanoTime() - start;
+
+        assertTrue(recordedPace >= 200_000_000L, "replayed in " + recordedPace + " ns");
+        assertTrue(fourTimesFaster >= 50_000_000L && fourTimesFaster < recordedPace, "replayed in " + fourTimesFaster + " ns");
+    }
+
+    @Test
+    void constructor_RejectsAMissingJournal() {
+        assertThrows(IOException.class, () -> new JournalReplayer(dir.resolve("none.journal").toString()));
+    }
+}
@@ -0,0 +1,76 @@
+package bguspl.set;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.FileHandler;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Logs the decorator's placing-card message from several threads, with the game's log format, into a temporary file:
+ * through a FileHandler with the message built by the logging thread (as the game used to), and through an
+ * AsyncLogHandler with a parameterised record. Reports the time per call on the logging threads, and the total time
+ * until everything is in the file.
+ * Run with: mvn test-compile && java -cp target/classes:target/test-classes bguspl.set.LoggingBenchmark [threads] [records per thread]
+ */
+public class LoggingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int records = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        Path dir = Files.createTempDirectory("set-logs");
+
+        for (int round = 0; round < 2; round++) { // the first round warms up
+            Path syncFile = dir.resolve("sync-" + round + ".log");
+            double[] sync = run(new FileHandler(syncFile.toString()), threads, records, false);
+            Path asyncFile = dir.resolve("async-" + round + ".log");
+            AsyncLogHandler async = AsyncLogHandler.start(asyncFile, AsyncLogHandler.DEFAULT_CAPACITY);
+            double[] asyncResult = run(async, threads, records, true);
+            if (round == 0) continue;
+            System.out.printf("%d threads x %d records: per call on the logging threads: FileHandler %.0f ns -> AsyncLogHandler %.0f ns%n",
+                    threads, records, sync[0], asyncResult[0]);
+            System.out.printf("until written: FileHandler %.0f ms (%d bytes) -> AsyncLogHandler %.0f ms (%d bytes, %d records dropped)%n",
+                    sync[1], Files.size(syncFile), asyncResult[1], Files.size(asyncFile), async.dropped());
+        }
+    }
+
+    /**
+     * @return - the average time per log call on the logging threads in nanoseconds, and the time until the handler
+     *           was closed (so everything was written) in milliseconds.
+     */
+    private static double[] run(Handler handler, int threads, int records, boolean parameterised) throws InterruptedException {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+        Main.setLoggerLevelAndFormat(logger, Level.ALL, "[%1$tT.%1$tL] [%2$-7s] %3$s%n");
+
+        long[] callNanos = new long[threads];
+        Thread[] loggers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            loggers[t] = new Thread(() -> {
+                long threadStart = System.nanoTime();
+                for (int i = 0; i < records; i++) {
+                    int card = i % 81, slot = i % 12;
+                    if (parameterised)
+                        logger.log(Level.SEVERE, "placing card {0,number,#} in slot {1,number,#}", new Object[]{card, slot});
+                    else
+                        logger.severe("placing card " + card + " in slot " + slot);
+                }
+                callNanos[id] = System.nanoTime() - threadStart;
+            });
+            loggers[t].start();
+        }
+        for (Thread thread : loggers)
+            thread.join();
+        handler.close();
+        double totalMillis = (System.nanoTime() - start) / 1e6;
+        logger.removeHandler(handler);
+
+        long sum = 0;
+        for (long nanos : callNanos) sum += nanos;
+        return new double[]{(double) sum / threads / records, totalMillis};
+    }
+}
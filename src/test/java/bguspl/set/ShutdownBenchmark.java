@@ -0,0 +1,58 @@
+package bguspl.set;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Measures the time-to-shutdown of a running game (from stop() until the dealer thread ended) with 10, 100 and 1000
+ * computer players, for every threading mode, and of a host stopping many games at once.
+ * Run with: mvn test-compile && java -cp target/classes:target/test-classes bguspl.set.ShutdownBenchmark [hostedGames]
+ */
+public class ShutdownBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int hostedGames = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        Logger logger = Logger.getLogger("ShutdownBenchmark");
+        logger.setUseParentHandlers(false);
+
+        String[][] modes = {{"platform threads", "False", "False"}, {"virtual threads", "True", "False"}, {"actors", "True", "True"}};
+        for (String[] mode : modes) {
+            for (int players : new int[]{10, 100, 1000}) {
+                Properties properties = properties(players);
+                properties.put("VirtualThreads", mode[1]);
+                properties.put("PlayerActors", mode[2]);
+                Config config = new Config(logger, properties);
+                GameExecutor executor = new GameExecutor(config);
+                GameSession game = new GameSession(0, new Env(logger, config, new HeadlessUserInterface(), new UtilImpl(config), executor));
+                game.start();
+                Thread.sleep(500);
+                long start = System.nanoTime();
+                game.stop();
+                System.out.printf("%-16s %4d players: stopped in %6.1fms (players ended in %.1fms)%n", mode[0], players,
+                        (System.nanoTime() - start) / 1e6, game.stats().shutdownLatency.percentile(1) / 1e6);
+                executor.shutdown();
+            }
+        }
+
+        GameHost host = new GameHost(logger, properties(4), Runtime.getRuntime().availableProcessors());
+        for (int i = 0; i < hostedGames; i++)
+            host.start(new Properties());
+        Thread.sleep(2000);
+        long start = System.nanoTime();
+        int stuck = host.shutdown();
+        System.out.printf("host with %d games: stopped in %.1fms (%d did not stop in time), per game: %s%n", hostedGames,
+                (System.nanoTime() - start) / 1e6, stuck, host.totals().shutdownLatency);
+    }
+
+    private static Properties properties(int computerPlayers) {
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(computerPlayers));
+        properties.put("TableDelaySeconds", "0");
+        properties.put("AiThinkSeconds", "0");
+        properties.put("PlayerActors", "True");
+        properties.put("TurnTimeoutSeconds", "60");
+        return properties;
+    }
+}
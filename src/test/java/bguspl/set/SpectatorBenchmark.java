@@ -0,0 +1,63 @@
+package bguspl.set;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Plays a game of computer players served to spectators over the loopback interface (in front of a headless user
+ * interface), and reports the user interface updates of the game against the frames and bytes every spectator received.
+ * Run with: mvn test-compile && java -cp target/classes:target/test-classes bguspl.set.SpectatorBenchmark [seconds] [spectators] [players]
+ */
+public class SpectatorBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int watchers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int players = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        Logger logger = Logger.getLogger("SpectatorBenchmark");
+        logger.setUseParentHandlers(false);
+
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(players));
+        properties.put("TableDelaySeconds", "0");
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("TurnTimeoutSeconds", "5");
+        properties.put("SpectatorPort", "0");
+        Config config = new Config(logger, properties);
+        HeadlessUserInterface headless = new HeadlessUserInterface();
+        SpectatorServer server = SpectatorServer.start(logger, config, headless);
+
+        SpectatorClient[] clients = new SpectatorClient[watchers];
+        Thread[] readers = new Thread[watchers];
+        for (int i = 0; i < watchers; i++) {
+            SpectatorClient client = clients[i] = new SpectatorClient("localhost", server.port());
+            readers[i] = new Thread(() -> {
+                try {
+                    while (true) client.readFrame();
+                } catch (Exception ignored) {} // closed
+            });
+            readers[i].start();
+        }
+
+        GameExecutor executor = new GameExecutor(config);
+        GameSession game = new GameSession(0, new Env(logger, config, server, new UtilImpl(config), executor));
+        long start = System.nanoTime();
+        game.start();
+        game.awaitEnd(seconds * 1000L);
+        game.stop();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+        Thread.sleep(500); // the last frames
+        System.out.printf("%.1fs of %d computer players: %d user interface updates (%.0f/s)%n",
+                elapsed, players, headless.total(), headless.total() / elapsed);
+        System.out.println("server: " + server);
+        for (SpectatorClient client : clients) client.close();
+        server.close();
+        for (int i = 0; i < watchers; i++)
+            System.out.printf("spectator %d: %d frames (%.1f/s), %d bytes (%.0f bytes/s)%n",
+                    i, clients[i].frames, clients[i].frames / elapsed, clients[i].bytes, clients[i].bytes / elapsed);
+    }
+}
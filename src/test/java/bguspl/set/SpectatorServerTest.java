@@ -0,0 +1,125 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpectatorServerTest {
+
+    private static Config config(int rows, int columns, int players, int backlogKilobytes) {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(players));
+        properties.put("Rows", Integer.toString(rows));
+        properties.put("Columns", Integer.toString(columns));
+        properties.put("FeatureCount", rows * columns > 81 ? "5" : "4");
+        properties.put("SpectatorPort", "0");
+        properties.put("SpectatorFramesPerSecond", "50");
+        properties.put("SpectatorBacklogKilobytes", Integer.toString(backlogKilobytes));
+        return new Config(Logger.getAnonymousLogger(), properties);
+    }
+
+    @Test
+    void spectator_GetsASnapshotThenTheChangesPerTick() throws Exception {
+        UserInterfaceBatcherTest.RecordingUserInterface live = new UserInterfaceBatcherTest.RecordingUserInterface();
+        SpectatorServer server = SpectatorServer.start(Logger.getAnonymousLogger(), config(3, 4, 3, 64), live);
+        server.placeCard(7, 3);
+        server.placeCard(80, 11);
+        server.placeToken(1, 3);
+        server.placeToken(2, 3);
+        server.setScore(2, 5);
+        server.setCountdownDeadline(System.nanoTime() + 10_000_000_000L, 5000);
+        Thread.sleep(100); // a few ticks, so the snapshot has it all
+
+        try (SpectatorClient client = new SpectatorClient("localhost", server.port())) {
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                assertEquals(SpectatorServer.SNAPSHOT, client.readFrame());
+                assertEquals(3, client.rows);
+                assertEquals(4, client.columns);
+                assertEquals(3, client.players);
+                assertEquals(7, client.cards[3]);
+                assertEquals(80, client.cards[11]);
+                assertEquals(-1, client.cards[0]);
+                assertArrayEquals(new int[]{1, 2}, client.tokens[3]);
+                assertArrayEquals(new int[]{0, 0, 5}, client.scores);
+                assertTrue(client.countdownRuns);
+                assertTrue(client.countdownMillis > 9000 && client.countdownMillis <= 10_000, "countdown " + client.countdownMillis);
+                assertEquals(5000, client.countdownWarnMillis);
+
+                server.removeToken(1, 3);
+                server.placeToken(0, 5); // placed and removed within a tick: never sent
+                server.removeToken(0, 5);
+                server.removeCard(11);
+                server.setScore(0, 1);
+                server.announceWinner(new int[]{2});
+                while (client.winners == null)
+                    assertEquals(SpectatorServer.DELTA, client.readFrame());
+
+                assertArrayEquals(new int[]{2}, client.tokens[3]);
+                assertEquals(0, client.tokens[5].length);
+                assertEquals(-1, client.cards[11]);
+                assertArrayEquals(new int[]{1, 0, 5}, client.scores);
+                assertArrayEquals(new int[]{2}, client.winners);
+                assertTrue(client.frames <= 3, client.frames + " frames"); // the snapshot, and the changes in a tick or two
+            });
+        } finally {
+            server.close();
+        }
+        assertEquals(12, live.calls.size());
+        assertEquals("placeCard 7 3", live.calls.get(0));
+    }
+
+    @Test
+    void slowSpectator_IsDroppedAndTheOthersKeepUp() throws Exception {
+        SpectatorServer server = SpectatorServer.start(Logger.getAnonymousLogger(), config(10, 10, 20, 4), null);
+        Socket slow = new Socket();
+        slow.setReceiveBufferSize(1024);
+        slow.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.port())); // and never reads
+        SpectatorClient client = new SpectatorClient("localhost", server.port());
+        AtomicBoolean caughtUp = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            try {
+                do client.readFrame();
+                while (client.cards[0] != 42 || Arrays.stream(client.tokens).anyMatch(on -> on.length > 0));
+                caughtUp.set(true);
+            } catch (IOException ignored) {} // dropped as well
+        });
+        reader.start();
+
+        try {
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            for (int round = 0; server.dropped() == 0 && System.nanoTime() < deadline; round++) {
+                for (int slot = 0; slot < 100; slot++)
+                    for (int player = 0; player < 10; player++)
+                        if (round % 2 == 0) server.placeToken(player, slot);
+                        else server.removeToken(player, slot);
+                Thread.sleep(20); // a tick
+            }
+            assertEquals(1, server.dropped());
+            server.removeTokens();
+            server.placeCard(42, 0);
+
+            reader.join(10_000);
+            assertTrue(caughtUp.get(), "the spectator that reads did not catch up: " + client);
+            slow.setSoTimeout(5000);
+            InputStream in = slow.getInputStream();
+            byte[] buffer = new byte[1 << 16];
+            while (in.read(buffer) >= 0) {} // what was sent before the slow spectator was dropped, then the end
+        } finally {
+            client.close();
+            slow.close();
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package bguspl.set;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Places and removes tokens of random players on the table grid for a growing number of players, and reports the time
+ * per token change (without painting; painting the changed cell is dominated by its card either way), and the time to
+ * remove all the tokens of a full table (every player with 3 tokens) and paint the grid offscreen, into a BufferedImage:
+ * with the painted overlay, and with the per-cell labels the grid used to have (over the same cards), whose text was
+ * rebuilt from all the players on every change.
+ * Run with: mvn test-compile && java -Djava.awt.headless=true -cp target/classes:target/test-classes bguspl.set.TokenOverlayBenchmark [changes]
+ */
+public class TokenOverlayBenchmark {
+
+    public static void main(String[] args) {
+        int changes = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        Logger logger = Logger.getLogger("TokenOverlayBenchmark");
+        logger.setUseParentHandlers(false);
+
+        for (int players : new int[]{4, 16, 64, 256}) {
+            Properties properties = new Properties();
+            properties.put("HumanPlayers", "0");
+            properties.put("ComputerPlayers", Integer.toString(players));
+            Config config = new Config(logger, properties);
+            GamePanel panel = new GamePanel(config);
+            panel.setSize(panel.getPreferredSize());
+            LabelGrid labels = new LabelGrid(config, new GamePanel(config));
+            BufferedImage image = new BufferedImage(panel.getWidth(), panel.getHeight(), BufferedImage.TYPE_INT_RGB);
+
+            run(config, panel, labels, changes / 4); // warm up
+            double overlayMicros = run(config, panel, null, changes);
+            double labelsMicros = run(config, null, labels, changes);
+            clear(config, panel, labels, image, 5); // warm up
+            double overlayClearMillis = clear(config, panel, null, image, 20);
+            double labelsClearMillis = clear(config, null, labels, image, 20);
+            System.out.printf("%3d players: token change: labels %6.2f us -> overlay %5.2f us, removing all tokens: labels %8.3f ms -> overlay %6.3f ms%n",
+                    players, labelsMicros, overlayMicros, labelsClearMillis, overlayClearMillis);
+        }
+    }
+
+    /**
+     * Toggles the token of a random player on a random slot (every player has at most 3 tokens).
+     *
+     * @return - the average time per change in microseconds.
+     */
+    private static double run(Config config, GamePanel panel, LabelGrid labels, int changes) {
+        Random random = new Random(0);
+        boolean[][] placed = new boolean[config.players][config.tableSize];
+        int[] placedCount = new int[config.players];
+        long start = System.nanoTime();
+        for (int change = 0; change < changes; change++) {
+            int player = random.nextInt(config.players);
+            int slot = random.nextInt(config.tableSize);
+            boolean place = !placed[player][slot];
+            if (place && placedCount[player] == 3) continue;
+            placed[player][slot] = place;
+            placedCount[player] += place ? 1 : -1;
+            if (panel != null) {
+                if (place) panel.placeToken(player, slot);
+                else panel.removeToken(player, slot);
+            }
+            if (labels != null)
+                labels.setToken(player, slot, place);
+        }
+        return (System.nanoTime() - start) / 1e3 / changes;
+    }
+
+    /**
+     * Gives every player 3 tokens, then removes all of them and paints the whole grid, the given number of times.
+     *
+     * @return - the average time to remove the tokens and paint, in milliseconds.
+     */
+    private static double clear(Config config, GamePanel panel, LabelGrid labels, BufferedImage image, int times) {
+        Random random = new Random(0);
+        long nanos = 0;
+        for (int time = 0; time < times; time++) {
+            for (int player = 0; player < config.players; player++) {
+                for (int token = 0; token < 3; token++) {
+                    int slot = random.nextInt(config.tableSize);
+                    if (panel != null) panel.placeToken(player, slot);
+                    if (labels != null) labels.setToken(player, slot, true);
+                }
+            }
+            long start = System.nanoTime();
+            Graphics2D g = image.createGraphics();
+            g.setClip(0, 0, image.getWidth(), image.getHeight());
+            if (panel != null) {
+                panel.removeTokens();
+                panel.paintComponent(g);
+            }
+            if (labels != null) {
+                labels.removeTokens();
+                labels.paint(g);
+            }
+            g.dispose();
+            nanos += System.nanoTime() - start;
+        }
+        return nanos / 1e6 / times;
+    }
+
+    /**
+     * The tokens as the grid used to show them: a label per cell, with the comma separated names of the players that
+     * placed tokens on it, rebuilt by going over all the players on every change.
+     */
+    private static class LabelGrid {
+
+        private final Config config;
+        private final GamePanel cards; // the cards under the labels (with no tokens of its own)
+        private final boolean[][] playerTokens;
+        private final JLabel[] tokenText;
+
+        LabelGrid(Config config, GamePanel cards) {
+            this.config = config;
+            this.cards = cards;
+            playerTokens = new boolean[config.players][config.tableSize];
+            tokenText = new JLabel[config.tableSize];
+            for (int slot = 0; slot < config.tableSize; slot++) {
+                tokenText[slot] = new JLabel("");
+                tokenText[slot].setVerticalAlignment(JLabel.TOP);
+                tokenText[slot].setHorizontalAlignment(JLabel.CENTER);
+                tokenText[slot].setOpaque(false);
+                tokenText[slot].setBorder(BorderFactory.createLineBorder(Color.black));
+                tokenText[slot].setBounds((slot % config.columns) * config.cellWidth, (slot / config.columns) * config.cellHeight,
+                        config.cellWidth, config.cellHeight);
+            }
+        }
+
+        void setToken(int player, int slot, boolean placed) {
+            playerTokens[player][slot] = placed;
+            updateText(slot);
+        }
+
+        void removeTokens() {
+            for (int slot = 0; slot < config.tableSize; slot++)
+                for (int player = 0; player < config.players; player++) {
+                    playerTokens[player][slot] = false;
+                    updateText(slot);
+                }
+        }
+
+        private void updateText(int slot) {
+            String text = "";
+            for (int other = 0; other < config.players; other++)
+                if (playerTokens[other][slot])
+                    text = text.concat(config.playerNames[other] + ", ");
+            tokenText[slot].setText(text.length() < 2 ? "" : text.substring(0, text.length() - 2));
+        }
+
+        /**
+         * Paints the cards inside the clip, and the label of every slot.
+         */
+        void paint(Graphics2D g) {
+            cards.paintComponent(g);
+            for (JLabel label : tokenText) {
+                Rectangle bounds = label.getBounds();
+                Graphics2D cell = (Graphics2D) g.create(bounds.x, bounds.y, bounds.width, bounds.height);
+                label.paint(cell);
+                cell.dispose();
+            }
+        }
+    }
+}
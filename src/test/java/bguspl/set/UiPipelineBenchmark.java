@@ -0,0 +1,45 @@
+package bguspl.set;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Plays a game of computer players through a UserInterfaceBatcher (in front of a user interface that only counts
+ * its calls), and reports the user interface updates per second, as submitted by the game and as applied per frame.
+ * Run with: mvn test-compile && java -Djava.awt.headless=true -cp target/classes:target/test-classes bguspl.set.UiPipelineBenchmark [seconds] [players]
+ */
+public class UiPipelineBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        Logger logger = Logger.getLogger("UiPipelineBenchmark");
+        logger.setUseParentHandlers(false);
+
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(players));
+        properties.put("TableDelaySeconds", "0");
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("AiThinkSeconds", "0");
+        properties.put("TurnTimeoutSeconds", "5");
+        properties.put("TurnTimeoutWarningSeconds", "5");
+        properties.put("EndGamePauseSeconds", "0");
+        Config config = new Config(logger, properties);
+
+        HeadlessUserInterface swing = new HeadlessUserInterface();
+        UserInterfaceBatcher batcher = UserInterfaceBatcher.start(logger, config, swing);
+        GameExecutor executor = new GameExecutor(config);
+        GameSession game = new GameSession(0, new Env(logger, config, batcher, new UtilImpl(config), executor));
+        game.start();
+        game.awaitEnd(seconds * 1000L);
+        game.stop();
+        executor.shutdown();
+        batcher.dispose(); // stops the frames, so the event dispatch thread can end
+        System.out.println(batcher);
+        System.out.printf("tokens and countdowns reaching the user interface: %d%n", swing.count(HeadlessUserInterface.Call.PLACE_TOKEN)
+                + swing.count(HeadlessUserInterface.Call.REMOVE_TOKEN) + swing.count(HeadlessUserInterface.Call.COUNTDOWN));
+    }
+}
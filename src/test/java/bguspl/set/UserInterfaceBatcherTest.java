@@ -0,0 +1,165 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserInterfaceBatcherTest {
+
+    private List<String> calls;
+    private UserInterfaceBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "2");
+        properties.put("ComputerPlayers", "0");
+        properties.put("Rows", "3");
+        properties.put("Columns", "4");
+        RecordingUserInterface ui = new RecordingUserInterface();
+        calls = ui.calls;
+        batcher = new UserInterfaceBatcher(Logger.getAnonymousLogger(), new Config(Logger.getAnonymousLogger(), properties), ui);
+    }
+
+    @Test
+    void flush_AppliesOnlyTheLastCountdown() {
+        for (long millies = 5000; millies > 0; millies -= 10)
+            batcher.setCountdown(millies, true);
+        batcher.flush();
+
+        assertEquals(List.of("setCountdown 10 true"), calls);
+        assertEquals(500, batcher.submitted());
+        assertEquals(1, batcher.applied());
+    }
+
+    @Test
+    void flush_AppliesTheLastTimerCall() {
+        batcher.setCountdown(5000, false);
+        batcher.setCountdownDeadline(123456789L, 3000);
+        batcher.flush();
+
+        assertEquals(List.of("setCountdownDeadline 123456789 3000"), calls);
+
+        calls.clear();
+        batcher.setCountdownDeadline(987654321L, 3000);
+        batcher.setCountdown(0, true);
+        batcher.flush();
+
+        assertEquals(List.of("setCountdown 0 true"), calls);
+    }
+
+    @Test
+    void flush_AppliesTheFinalTokensOfEverySlot() {
+        batcher.placeCard(7, 3);
+        batcher.placeToken(0, 3);
+        batcher.placeToken(1, 3);
+        batcher.removeToken(0, 3);
+        batcher.placeToken(0, 5);
+        batcher.removeTokens(5);
+        batcher.flush();
+
+        assertEquals(List.of("placeCard 7 3", "placeToken 1 3"), calls);
+
+        calls.clear();
+        batcher.removeTokens();
+        batcher.removeCard(3);
+        batcher.flush();
+
+        assertEquals(List.of("removeCard 3", "removeTokens 3"), calls);
+
+        calls.clear();
+        batcher.flush();
+
+        assertEquals(List.of(), calls);
+    }
+
+    @Test
+    void flush_AnnouncesTheWinnersAfterTheScores() {
+        batcher.announceWinner(new int[]{1});
+        batcher.setScore(1, 2);
+        batcher.setScore(1, 3);
+        batcher.flush();
+
+        assertEquals(List.of("setScore 1 3", "announceWinner [1]"), calls);
+    }
+
+    /**
+     * A user interface that records its calls.
+     */
+    static class RecordingUserInterface implements UserInterface {
+
+        final List<String> calls = new ArrayList<>();
+
+        @Override
+        public void placeCard(int card, int slot) {
+            calls.add("placeCard " + card + " " + slot);
+        }
+
+        @Override
+        public void removeCard(int slot) {
+            calls.add("removeCard " + slot);
+        }
+
+        @Override
+        public void placeToken(int player, int slot) {
+            calls.add("placeToken " + player + " " + slot);
+        }
+
+        @Override
+        public void removeTokens() {
+            calls.add("removeTokens");
+        }
+
+        @Override
+        public void removeTokens(int slot) {
+            calls.add("removeTokens " + slot);
+        }
+
+        @Override
+        public void removeToken(int player, int slot) {
+            calls.add("removeToken " + player + " " + slot);
+        }
+
+        @Override
+        public void setCountdown(long millies, boolean warn) {
+            calls.add("setCountdown " + millies + " " + warn);
+        }
+
+        @Override
+        public void setCountdownDeadline(long deadline, long warnMillis) {
+            calls.add("setCountdownDeadline " + deadline + " " + warnMillis);
+        }
+
+        @Override
+        public void setElapsed(long millies) {
+            calls.add("setElapsed " + millies);
+        }
+
+        @Override
+        public void setFreeze(int player, long millies) {
+            calls.add("setFreeze " + player + " " + millies);
+        }
+
+        @Override
+        public void setScore(int player, int score) {
+            calls.add("setScore " + player + " " + score);
+        }
+
+        @Override
+        public void announceWinner(int[] players) {
+            calls.add("announceWinner " + Arrays.toString(players));
+        }
+
+        @Override
+        public void dispose() {
+            calls.add("dispose");
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilImplTest {
+
+    private Config config;
+    private UtilImpl util;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        config = new Config(Logger.getAnonymousLogger(), properties);
+        util = new UtilImpl(config);
+    }
+
+    @Test
+    void thirdCard_CompletesEveryPairToASet() {
+        for (int first = 0; first < config.deckSize; ++first)
+            for (int second = first + 1; second < config.deckSize; ++second)
+                assertTrue(util.testSet(new int[]{first, second, util.thirdCard(first, second)}));
+    }
+
+    @Test
+    void findSets_FindsTheSameSetsAsTheExhaustiveSearch() {
+        int[] cards = IntStream.range(0, 81).filter(card -> card % 7 != 0).limit(15).toArray();
+        List<Integer> deck = IntStream.of(cards).boxed().collect(Collectors.toList());
+
+        List<String> expected = util.findSets(deck, Integer.MAX_VALUE).stream()
+                .map(Arrays::toString).sorted(Comparator.naturalOrder()).collect(Collectors.toList());
+        List<String> actual = util.findSets(cards, Integer.MAX_VALUE).stream()
+                .map(Arrays::toString).sorted(Comparator.naturalOrder()).collect(Collectors.toList());
+
+        assertEquals(expected, actual);
+        assertEquals(1, util.findSets(cards, 1).size());
+    }
+
+    @Test
+    void countSets_CountsTheSetsFindSetsFinds() {
+        int[] cards = IntStream.range(0, 81).filter(card -> card % 5 != 0).limit(20).toArray();
+
+        assertEquals(util.findSets(cards, Integer.MAX_VALUE).size(), util.countSets(cards, cards.length));
+        assertEquals(util.findSets(Arrays.copyOf(cards, 12), Integer.MAX_VALUE).size(), util.countSets(cards, 12));
+    }
+}
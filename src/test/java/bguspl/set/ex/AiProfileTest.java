@@ -0,0 +1,63 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AiProfileTest {
+
+    private static final int SAMPLES = 100_000;
+
+    private double meanDelayMillis(AiProfile profile) {
+        Random random = new Random(42);
+        long total = 0;
+        for (int i = 0; i < SAMPLES; i++)
+            total += profile.nextDelayNanos(random);
+        return total / 1_000_000.0 / SAMPLES;
+    }
+
+    @Test
+    void unpaced_HasNoDelay() {
+        AiProfile profile = new AiProfile(AiProfile.Kind.UNPACED, 10, 0.5, 5, 1000);
+
+        assertFalse(profile.paced());
+        assertEquals(0, meanDelayMillis(profile));
+    }
+
+    @Test
+    void pacedProfiles_MatchTheConfiguredRate() {
+        for (AiProfile.Kind kind : new AiProfile.Kind[]{AiProfile.Kind.FIXED, AiProfile.Kind.POISSON, AiProfile.Kind.LOGNORMAL}) {
+            AiProfile profile = new AiProfile(kind, 20, 0.5, 5, 1000);
+
+            assertTrue(profile.paced());
+            assertEquals(50.0, meanDelayMillis(profile), 1.0, kind.name());
+        }
+    }
+
+    @Test
+    void pacedProfiles_WithNoPositiveRateAreUnpaced() {
+        for (AiProfile.Kind kind : new AiProfile.Kind[]{AiProfile.Kind.FIXED, AiProfile.Kind.BURSTY}) {
+            for (double actionsPerSecond : new double[]{0, -1, Double.NaN}) {
+                AiProfile profile = new AiProfile(kind, actionsPerSecond, 0.5, 5, 0);
+
+                assertFalse(profile.paced(), kind + " at " + actionsPerSecond);
+            }
+        }
+    }
+
+    @Test
+    void bursty_PausesAfterEachBurst() {
+        AiProfile profile = new AiProfile(AiProfile.Kind.BURSTY, 100, 0.5, 4, 1000);
+        Random random = new Random(42);
+
+        for (int burst = 0; burst < 3; burst++) {
+            for (int i = 0; i < 3; i++)
+                assertEquals(10_000_000L, profile.nextDelayNanos(random));
+            assertEquals(1_000_000_000L, profile.nextDelayNanos(random));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Takes checkpoints of a dealt table and scores (into a temporary directory) on growing grids and player
+ * counts, as the dealer does at the start of a round, and reports the size of a checkpoint, the time the table lock
+ * is held to copy the state, and the time of the whole checkpoint including writing the file.
+ * Run with: mvn test-compile && java -cp target/classes:target/test-classes bguspl.set.ex.CheckpointBenchmark [checkpoints]
+ */
+public class CheckpointBenchmark {
+
+    private static final int[][] GRIDS = {{3, 4}, {6, 8}, {20, 25}};
+    private static final int[] PLAYERS = {2, 100, 500};
+
+    public static void main(String[] args) throws Exception {
+        int checkpoints = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        Path dir = Files.createTempDirectory("set-checkpoint");
+        System.out.printf("%-8s %-8s %8s   %-60s %s%n", "slots", "players", "bytes", "table locked", "whole checkpoint");
+        for (int round = 0; round < 2; round++) // the first round warms up the JIT
+            for (int[] grid : GRIDS)
+                for (int players : PLAYERS)
+                    run(grid[0], grid[1], players, checkpoints, dir.resolve("game.checkpoint"), round == 1);
+    }
+
+    private static void run(int rows, int columns, int players, int checkpoints, Path file, boolean print) throws Exception {
+        Properties properties = new Properties();
+        properties.put("Rows", Integer.toString(rows));
+        properties.put("Columns", Integer.toString(columns));
+        properties.put("FeatureCount", Integer.toString(TableBenchmark.featureCountFor(rows * columns)));
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(players));
+        properties.put("TableDelaySeconds", "0");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        Table table = new Table(env);
+        Player[] playerArray = new Player[players];
+        Dealer dealer = new Dealer(env, table, playerArray);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < players; i++) {
+            playerArray[i] = new Player(env, dealer, table, i, false);
+            playerArray[i].restoreScore(random.nextInt(20));
+        }
+        for (int slot = 0; slot < config.tableSize; slot++)
+            table.placeCard(slot, slot);
+
+        LatencyHistogram locked = new LatencyHistogram();
+        LatencyHistogram whole = new LatencyHistogram();
+        int bytes = 0;
+        for (int i = 0; i < checkpoints; i++) {
+            long start = System.nanoTime();
+            while (!table.tableLock.compareAndSet(false, true)) {}
+            Checkpoint checkpoint = dealer.capture();
+            table.tableLock.compareAndSet(true, false);
+            locked.record(System.nanoTime() - start);
+            checkpoint.write(file);
+            whole.record(System.nanoTime() - start);
+            bytes = (int) Files.size(file);
+        }
+        if (print)
+            System.out.printf("%-8d %-8d %8d   %-60s %s%n", config.tableSize, players, bytes, locked, whole);
+    }
+}
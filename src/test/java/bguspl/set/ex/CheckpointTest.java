@@ -0,0 +1,157 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointTest {
+
+    @TempDir
+    Path dir;
+
+    private static Config config(int players) {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", Integer.toString(players));
+        properties.put("ComputerPlayers", "0");
+        properties.put("TableDelaySeconds", "0");
+        return new Config(new TableTest.MockLogger(), properties);
+    }
+
+    /**
+     * A game that was not started: its table, dealer and players, and the calls to its user interface.
+     */
+    private static final class Game {
+
+        final List<String> calls = new CopyOnWriteArrayList<>();
+        final Table table;
+        final Player[] players;
+        final Dealer dealer;
+
+        Game(Config config) {
+            Env env = new Env(new TableTest.MockLogger(), config, new TableTest.MockUserInterface() {
+                @Override
+                public void placeCard(int card, int slot) {
+                    calls.add("placeCard " + card + " " + slot);
+                }
+
+                @Override
+                public void placeToken(int player, int slot) {
+                    calls.add("placeToken " + player + " " + slot);
+                }
+
+                @Override
+                public void setScore(int player, int score) {
+                    calls.add("setScore " + player + " " + score);
+                }
+            }, new UtilImpl(config));
+            table = new Table(env);
+            players = new Player[config.players];
+            dealer = new Dealer(env, table, players);
+            for (int i = 0; i < players.length; i++)
+                players[i] = new Player(env, dealer, table, i, true);
+        }
+    }
+
+    @Test
+    void restore_PutsTheCapturedGameBack() throws IOException {
+        Config config = config(2);
+        Game saved = new Game(config);
+        int[] slots = new int[config.tableSize];
+        Arrays.fill(slots, -1);
+        slots[0] = 5;
+        slots[7] = 80;
+        slots[11] = 12;
+        int[] deck = IntStream.range(0, config.deckSize).filter(card -> card != 5 && card != 80 && card != 12).toArray();
+        saved.dealer.restore(new Checkpoint(config.deckSize, deck, slots, new int[2])); // a dealt table
+        saved.table.placeToken(1, 7);
+        saved.table.placeToken(1, 11);
+        saved.players[0].restoreScore(3);
+        Checkpoint checkpoint = Checkpoint.decode(saved.dealer.capture().encode());
+
+        Game resumed = new Game(config);
+        checkpoint.check(config);
+        resumed.dealer.restore(checkpoint);
+
+        assertArrayEquals(saved.dealer.capture().encode(), resumed.dealer.capture().encode());
+        assertEquals(List.of("placeCard 5 0", "placeCard 80 7", "placeCard 12 11", "setScore 0 3", "setScore 1 0"), resumed.calls);
+        assertEquals(3, resumed.players[0].score());
+        assertEquals(0, resumed.table.tokenCount(1)); // the round resumes without tokens, as no claim of them is in flight
+        assertEquals(config.tableSize - 3, resumed.table.openCount);
+        assertTrue(Arrays.stream(resumed.table.openSlots, 0, resumed.table.openCount).noneMatch(slot -> slot == 0 || slot == 7 || slot == 11));
+    }
+
+    @Test
+    void read_ReturnsTheLastCheckpointWritten() throws IOException {
+        Config config = config(2);
+        Game game = new Game(config);
+        Path file = dir.resolve("game.checkpoint");
+        game.dealer.capture().write(file);
+        game.players[1].restoreScore(1);
+        game.dealer.capture().write(file);
+
+        Checkpoint checkpoint = Checkpoint.read(file);
+
+        assertArrayEquals(new int[]{0, 1}, checkpoint.scores);
+        assertArrayEquals(game.dealer.capture().encode(), checkpoint.encode());
+        assertFalse(Files.exists(dir.resolve("game.checkpoint.tmp")));
+    }
+
+    @Test
+    void read_RejectsWhatIsNotACheckpoint() throws IOException {
+        byte[] bytes = new Game(config(2)).dealer.capture().encode();
+        Path truncated = Files.write(dir.resolve("truncated"), Arrays.copyOf(bytes, bytes.length / 2));
+        Path other = Files.write(dir.resolve("other"), "not a checkpoint".getBytes());
+
+        assertThrows(IOException.class, () -> Checkpoint.read(truncated));
+        assertThrows(IOException.class, () -> Checkpoint.read(other));
+        assertThrows(IOException.class, () -> Checkpoint.read(dir.resolve("none")));
+    }
+
+    @Test
+    void check_RejectsAGameOfOtherSettings() throws IOException {
+        Checkpoint checkpoint = Checkpoint.decode(new Game(config(2)).dealer.capture().encode());
+
+        checkpoint.check(config(2));
+        assertThrows(IOException.class, () -> checkpoint.check(config(3)));
+    }
+
+    @Test
+    void check_RejectsCardsThatAreNotInTheDeckOnce() {
+        Config config = config(2);
+        int[] slots = new int[config.tableSize];
+        Arrays.fill(slots, -1);
+        int[] scores = {0, 0};
+        int[] onTable = slots.clone();
+        onTable[3] = 7;
+
+        assertThrows(IOException.class, () -> new Checkpoint(81, new int[]{1, 81}, slots, scores).check(config));
+        assertThrows(IOException.class, () -> new Checkpoint(81, new int[]{1, -2}, slots, scores).check(config));
+        assertThrows(IOException.class, () -> new Checkpoint(81, new int[]{7, 1}, onTable, scores).check(config));
+        assertThrows(IOException.class, () -> new Checkpoint(81, new int[82], slots, scores).check(config));
+        assertThrows(IOException.class, () -> new Checkpoint(81, new int[]{1}, slots, new int[]{0, -1}).check(config));
+    }
+
+    @Test
+    void decode_RejectsCountsLargerThanTheFile() throws IOException {
+        byte[] bytes = new Game(config(2)).dealer.capture().encode();
+        ByteBuffer.wrap(bytes).putInt(20, Integer.MAX_VALUE); // the number of cards in the deck
+
+        assertThrows(IOException.class, () -> Checkpoint.decode(bytes));
+        ByteBuffer.wrap(bytes).putInt(20, -1);
+        assertThrows(IOException.class, () -> Checkpoint.decode(bytes));
+    }
+}
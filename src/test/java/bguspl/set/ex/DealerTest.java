@@ -0,0 +1,128 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DealerTest {
+
+    /**
+     * Starts a game with one (idle) human player, and records the cards of the first deal.
+     *
+     * @return - the placed cards and their slots, in order ("card@slot").
+     */
+    private List<String> firstDeal(String seed) throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "1");
+        properties.put("ComputerPlayers", "0");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("Seed", seed);
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        List<String> placed = new CopyOnWriteArrayList<>();
+        Env env = new Env(logger, config, new TableTest.MockUserInterface() {
+            @Override
+            public void placeCard(int card, int slot) {
+                placed.add(card + "@" + slot);
+            }
+        }, new UtilImpl(config));
+        Table table = new Table(env);
+        Player[] players = new Player[1];
+        Dealer dealer = new Dealer(env, table, players);
+        players[0] = new Player(env, dealer, table, 0, true);
+
+        Thread dealerThread = env.executor.start("dealer", dealer);
+        for (int i = 0; i < 1000 && placed.size() < config.tableSize; i++)
+            Thread.sleep(5);
+        dealer.terminate();
+        dealerThread.join(10_000);
+        env.executor.shutdown();
+        return placed.subList(0, config.tableSize);
+    }
+
+    @Test
+    void seed_SameSeedDealsSameCards() throws InterruptedException {
+        List<String> first = firstDeal("42");
+
+        assertEquals(first, firstDeal("42"));
+        assertNotEquals(first, firstDeal("43"));
+    }
+
+    /**
+     * @return - a dealer (not started) of a table with cards 0 to 11 in slots 0 to 11.
+     */
+    private static Dealer dealerOfAFullTable(Env env, Table table) {
+        for (int card = 0; card < table.slotToCard.length; card++)
+            table.placeCard(card, table.takeOpenSlot());
+        table.publishSnapshot();
+        return new Dealer(env, table, new Player[1]);
+    }
+
+    private static Env env() {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "1");
+        properties.put("ComputerPlayers", "0");
+        properties.put("TableDelaySeconds", "0");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        return new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+    }
+
+    private static Claim claimOf(Table table, long version, int... slots) {
+        int[] cards = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) cards[i] = table.slotToCard[slots[i]];
+        return new Claim(0, slots, cards, version);
+    }
+
+    @Test
+    void isStale_OlderClaimWithARemovedCard() {
+        Env env = env();
+        Table table = new Table(env);
+        Dealer dealer = dealerOfAFullTable(env, table);
+        Claim claim = claimOf(table, table.version(), 0, 1, 2);
+        table.removeCard(1);
+        table.publishSnapshot();
+
+        assertTrue(claim.version < table.version());
+        assertTrue(dealer.isStale(claim));
+    }
+
+    @Test
+    void isStale_OlderClaimWithAllItsCardsLeft() {
+        Env env = env();
+        Table table = new Table(env);
+        Dealer dealer = dealerOfAFullTable(env, table);
+        Claim claim = claimOf(table, table.version(), 0, 1, 2);
+        table.removeCard(5); // another set was taken
+        table.publishSnapshot();
+
+        assertFalse(dealer.isStale(claim));
+    }
+
+    @Test
+    void isStale_ReplacedCardChangesTheVersion() {
+        Env env = env();
+        Table table = new Table(env);
+        Dealer dealer = dealerOfAFullTable(env, table);
+        Claim claim = claimOf(table, table.version(), 0, 1, 2);
+        assertFalse(dealer.isStale(claim)); // nothing changed, so the cards are not looked up
+
+        table.removeCard(1);
+        table.placeCard(40, table.takeOpenSlot()); // another card in the same slot
+        table.publishSnapshot();
+
+        assertEquals(40, (int) table.slotToCard[1]);
+        assertNotEquals(claim.version, table.version()); // so the claim is checked, and its card is gone
+        assertTrue(dealer.isStale(claim));
+    }
+}
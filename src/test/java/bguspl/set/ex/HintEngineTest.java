@@ -0,0 +1,97 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HintEngineTest {
+
+    Table table;
+    HintEngine hintEngine;
+    StringWriter sink;
+    private Integer[] slotToCard;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("Rows", "2");
+        properties.put("Columns", "2");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        slotToCard = new Integer[config.tableSize];
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        table = new Table(env, slotToCard, new Integer[config.deckSize]);
+        sink = new StringWriter();
+        hintEngine = new HintEngine(env, sink);
+    }
+
+    private void placeOneSet() {
+        // cards 0, 1 and 2 differ only in the last feature, so they form a set
+        slotToCard[0] = 5;
+        slotToCard[1] = 0;
+        slotToCard[2] = 1;
+        slotToCard[3] = 2;
+        table.publishSnapshot();
+    }
+
+    @Test
+    void hints_ComputedOnCallerWhenNotCached() {
+        placeOneSet();
+        List<int[]> hints = hintEngine.hints(table.snapshot());
+
+        assertEquals(1, hints.size());
+        assertArrayEquals(new int[]{1, 2, 3}, hints.get(0));
+        assertEquals(table.version(), hintEngine.version());
+    }
+
+    @Test
+    void request_PrintsHintsInBackground() throws InterruptedException {
+        placeOneSet();
+        hintEngine.request(table.snapshot());
+        for (int i = 0; i < 100 && !sink.toString().endsWith(System.lineSeparator()); i++)
+            Thread.sleep(10);
+        hintEngine.shutdown();
+
+        assertEquals(1, hintEngine.hints().size());
+        assertTrue(sink.toString().startsWith("Hint: Set found: slots: [1, 2, 3]"));
+    }
+
+    @Test
+    void request_PrintsHintsAlreadyComputed() throws InterruptedException {
+        placeOneSet();
+        hintEngine.hints(table.snapshot()); // cached on the caller's thread, before the request
+        hintEngine.request(table.snapshot());
+        for (int i = 0; i < 100 && !sink.toString().endsWith(System.lineSeparator()); i++)
+            Thread.sleep(10);
+        hintEngine.shutdown();
+
+        assertTrue(sink.toString().startsWith("Hint: Set found: slots: [1, 2, 3]"));
+    }
+
+    @Test
+    void request_AfterShutdownIsIgnored() throws InterruptedException {
+        placeOneSet();
+        hintEngine.request(table.snapshot());
+        for (int i = 0; i < 100 && hintEngine.version() != table.version(); i++)
+            Thread.sleep(10);
+        hintEngine.shutdown();
+        long processed = hintEngine.version();
+        slotToCard[0] = 3;
+        table.publishSnapshot();
+        hintEngine.request(table.snapshot()); // as the dealer may, while the game is being terminated
+        Thread.sleep(50);
+
+        assertEquals(processed, hintEngine.version());
+        assertTrue(table.version() > processed);
+    }
+}
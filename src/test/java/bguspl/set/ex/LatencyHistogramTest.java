@@ -0,0 +1,47 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentile_WithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100_000; nanos++)
+            histogram.record(nanos);
+
+        assertEquals(100_000, histogram.count());
+        for (double fraction : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            long expected = (long) (fraction * 100_000);
+            long actual = histogram.percentile(fraction);
+            assertTrue(actual >= expected && actual <= expected * 1.125, fraction + ": " + actual);
+        }
+    }
+
+    @Test
+    void percentile_SmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(0.5));
+        histogram.record(3);
+        histogram.record(5);
+
+        assertEquals(3, histogram.percentile(0.5));
+        assertEquals(5, histogram.percentile(1));
+    }
+
+    @Test
+    void add_MergesCounts() {
+        LatencyHistogram first = new LatencyHistogram(), second = new LatencyHistogram();
+        first.record(1_000);
+        second.record(1_000_000);
+        second.record(2_000_000);
+        first.add(second);
+
+        assertEquals(3, first.count());
+        assertTrue(first.percentile(0.2) < 2_000);
+        assertTrue(first.percentile(1) >= 2_000_000);
+    }
+}
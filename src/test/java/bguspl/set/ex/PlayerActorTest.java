@@ -0,0 +1,183 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.GameExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlayerActorTest {
+
+    Table table;
+    Dealer dealer;
+    Player player;
+    ManualExecutor executor;
+    RecordingUserInterface ui;
+
+    /**
+     * Runs the posted tasks on the test's thread, when the test says so: the ready ones in the order they were posted,
+     * and the delayed ones a tick at a time (whatever their delay).
+     */
+    static class ManualExecutor extends GameExecutor {
+        final ArrayDeque<Runnable> ready = new ArrayDeque<>();
+        final List<Runnable> later = new ArrayList<>();
+        final List<Long> delays = new ArrayList<>(); // of the delayed tasks, in milliseconds
+
+        ManualExecutor() {
+            super(false, 1);
+        }
+
+        @Override
+        public boolean execute(Runnable task) {
+            ready.add(task);
+            return true;
+        }
+
+        @Override
+        public boolean schedule(Runnable task, long delay, TimeUnit unit) {
+            later.add(task);
+            delays.add(unit.toMillis(delay));
+            return true;
+        }
+
+        void runReady() {
+            for (Runnable task = ready.poll(); task != null; task = ready.poll())
+                task.run();
+        }
+
+        void tick() {
+            List<Runnable> due = new ArrayList<>(later);
+            later.clear();
+            delays.clear();
+            ready.addAll(due);
+            runReady();
+        }
+    }
+
+    /**
+     * Records the score, freeze and token calls, in order.
+     */
+    static class RecordingUserInterface extends TableTest.MockUserInterface {
+        final List<String> calls = new ArrayList<>();
+
+        @Override
+        public void setScore(int player, int score) {
+            calls.add("score " + score);
+        }
+
+        @Override
+        public void setFreeze(int player, long millies) {
+            calls.add("freeze " + millies);
+        }
+
+        @Override
+        public void placeToken(int player, int slot) {
+            calls.add("token");
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "1");
+        properties.put("PlayerActors", "True");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("PointFreezeSeconds", "2");
+        properties.put("PenaltyFreezeSeconds", "1");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        executor = new ManualExecutor();
+        ui = new RecordingUserInterface();
+        Env env = new Env(logger, config, ui, new TableTest.MockUtil(), executor);
+        table = new Table(env);
+        for (int slot = 0; slot < config.tableSize; slot++)
+            table.placeCard(slot, table.takeOpenSlot());
+        table.publishSnapshot();
+        Player[] players = new Player[1];
+        dealer = new Dealer(env, table, players);
+        player = players[0] = new Player(env, dealer, table, 0, false);
+    }
+
+    /**
+     * Starts the AI, and runs it until it claims a set and suspends itself.
+     *
+     * @return - the claim.
+     */
+    private Claim startAndClaim() {
+        player.start();
+        executor.runReady();
+        Claim claim = dealer.checkSets.poll(); // as the dealer takes it
+        assertNotNull(claim);
+        assertEquals(3, table.tokenCount(player.id));
+        assertTrue(executor.ready.isEmpty() && executor.later.isEmpty(), "the AI did not suspend itself");
+        return claim;
+    }
+
+    @Test
+    void verdict_FreezesThePlayerThenResumesTheAi() {
+        startAndClaim();
+        table.removePlayerTokens(player.id); // the set was taken off the table
+        ui.calls.clear();
+
+        player.raise(Player.POINT);
+        player.wakeUp();
+        executor.runReady();
+        assertEquals(1, player.score());
+        assertEquals(List.of("score 1", "freeze 2000"), ui.calls);
+        assertEquals(List.of(1000L), executor.delays); // the next freeze tick, and no AI tick while frozen
+
+        executor.tick();
+        assertEquals(List.of("score 1", "freeze 2000", "freeze 1000"), ui.calls);
+        assertEquals(0, table.tokenCount(player.id));
+
+        executor.tick(); // the freeze is over, so the AI resumes and claims again
+        assertEquals(List.of("score 1", "freeze 2000", "freeze 1000", "freeze 0"), ui.calls.subList(0, 4));
+        assertNotNull(dealer.checkSets.poll());
+        assertEquals(3, table.tokenCount(player.id));
+    }
+
+    @Test
+    void penalty_FreezesThePlayerWithItsTokensLeft() {
+        startAndClaim();
+        ui.calls.clear();
+
+        player.raise(Player.PENALTY);
+        player.wakeUp();
+        executor.runReady();
+        assertEquals(0, player.score());
+        assertEquals(List.of("freeze 1000"), ui.calls);
+
+        executor.tick();
+        assertEquals(List.of("freeze 1000", "freeze 0"), ui.calls.subList(0, 2));
+        assertTrue(ui.calls.subList(2, ui.calls.size()).contains("token")); // the same tokens are not claimed again after a penalty
+        assertNotNull(dealer.checkSets.poll());
+    }
+
+    @Test
+    void staleClaim_ClearsThePendingClaimAndResumesTheAi() {
+        Claim claim = startAndClaim();
+        table.removeCard(claim.slots[0]); // another player's set took one of the cards
+        table.publishSnapshot();
+        ui.calls.clear();
+
+        player.wakeUp(); // the dealer dropped the claim, without a verdict
+        executor.runReady();
+        assertTrue(ui.calls.stream().noneMatch(call -> call.startsWith("freeze")));
+        Claim next = dealer.checkSets.poll();
+        assertNotNull(next, "the AI did not claim again");
+        assertEquals(table.version(), next.version);
+        for (int card : next.cards)
+            assertNotNull(table.cardToSlot[card]);
+    }
+}
@@ -0,0 +1,97 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.GameExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlayerScalingTest {
+
+    /**
+     * How long the players get to act, and then to end.
+     */
+    private static final long DEADLINE_NANOS = 20_000_000_000L;
+
+    /**
+     * Counts the tokens each player placed.
+     */
+    private static class TokenCountingUserInterface extends TableTest.MockUserInterface {
+        final AtomicIntegerArray placed;
+
+        TokenCountingUserInterface(int players) {
+            placed = new AtomicIntegerArray(players);
+        }
+
+        @Override
+        public void placeToken(int player, int slot) {
+            placed.incrementAndGet(player);
+        }
+    }
+
+    /**
+     * Starts the given numbers of human and computer player threads on a full table, presses a key for every human
+     * player, and asserts that every player acts on its keys (places a token) and then ends once terminated.
+     */
+    private void actAndTerminate(int humans, int computers, boolean virtual) throws InterruptedException {
+        int count = humans + computers;
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", Integer.toString(humans));
+        properties.put("ComputerPlayers", Integer.toString(computers));
+        properties.put("TableDelaySeconds", "0");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        TokenCountingUserInterface ui = new TokenCountingUserInterface(count);
+        Env env = new Env(logger, config, ui, new TableTest.MockUtil(), new GameExecutor(virtual));
+        Table table = new Table(env);
+        for (int slot = 0; slot < config.tableSize; slot++)
+            table.placeCard(slot, slot);
+        table.publishSnapshot();
+        Player[] players = new Player[count];
+        Dealer dealer = new Dealer(env, table, players);
+        Thread[] threads = new Thread[count];
+
+        for (int i = 0; i < count; i++) {
+            players[i] = new Player(env, dealer, table, i, i < humans);
+            threads[i] = env.executor.start("player-" + i, players[i]);
+        }
+        for (int i = 0; i < humans; i++)
+            players[i].keyPressed(i % config.tableSize);
+
+        long deadline = System.nanoTime() + DEADLINE_NANOS;
+        int acted = 0;
+        while (System.nanoTime() < deadline) {
+            while (acted < count && ui.placed.get(acted) > 0) acted++;
+            if (acted == count) break;
+            Thread.sleep(10);
+        }
+        assertEquals(count, acted, "players that placed a token before the deadline");
+
+        for (Player player : players)
+            player.signalTermination();
+        deadline = System.nanoTime() + DEADLINE_NANOS;
+        for (int i = 0; i < count; i++) {
+            assertTrue(players[i].awaitTermination(deadline), "player " + i + " did not end");
+            assertFalse(threads[i].isAlive());
+        }
+        env.executor.shutdown();
+    }
+
+    @Test
+    void virtualThreads_TenToTenThousandPlayers() throws InterruptedException {
+        for (int count = 10; count <= 10_000; count *= 10)
+            actAndTerminate(count - count / 10, count / 10, true);
+    }
+
+    @Test
+    void platformThreads_TenToThousandPlayers() throws InterruptedException {
+        for (int count = 10; count <= 1_000; count *= 10)
+            actAndTerminate(count - count / 10, count / 10, false);
+    }
+}
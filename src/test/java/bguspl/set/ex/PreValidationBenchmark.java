@@ -0,0 +1,50 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+
+import java.util.Properties;
+
+/**
+ * Compares the dealer's load under random computer players with and without AiPreValidate.
+ * Run with: mvn test-compile && java -cp target/classes:target/test-classes bguspl.set.ex.PreValidationBenchmark
+ */
+public class PreValidationBenchmark {
+
+    private static final int[] PLAYERS = {4, 16, 64};
+    private static final String[][] MODES = {{"False", "0"}, {"True", "0"}, {"True", "0.1"}}; // AiPreValidate, AiPreValidateErrorRate
+    private static final long RUN_MILLIS = 3_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        for (int players : PLAYERS)
+            for (String[] mode : MODES)
+                System.out.printf("players %-3d pre-validate %-5s error %-4s %s%n", players, mode[0], mode[1], run(players, mode[0], mode[1]));
+    }
+
+    private static GameStats run(int players, String preValidate, String errorRate) throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(players));
+        properties.put("TableDelaySeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("AiPreValidate", preValidate);
+        properties.put("AiPreValidateErrorRate", errorRate);
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        Table table = new Table(env);
+        Player[] playerArray = new Player[players];
+        Dealer dealer = new Dealer(env, table, playerArray);
+        for (int i = 0; i < players; i++)
+            playerArray[i] = new Player(env, dealer, table, i, false);
+
+        Thread dealerThread = env.executor.start("dealer", dealer);
+        dealerThread.join(RUN_MILLIS);
+        dealer.terminate();
+        dealerThread.join();
+        env.executor.shutdown();
+        return dealer.stats();
+    }
+}
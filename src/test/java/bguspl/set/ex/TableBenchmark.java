@@ -0,0 +1,104 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A headless benchmark of the table operations on growing grids and player counts.
+ * Run with: mvn test-compile && java -cp target/classes:target/test-classes bguspl.set.ex.TableBenchmark
+ */
+public class TableBenchmark {
+
+    private static final int[][] GRIDS = {{3, 4}, {6, 8}, {10, 12}, {20, 25}, {30, 40}};
+    private static final int[] PLAYERS = {2, 100, 500};
+    private static final int OPERATIONS = 200_000;
+
+    private static volatile long sink; // keeps the JIT from removing the measured work
+
+    public static void main(String[] args) {
+        System.out.printf("%-8s %-8s %12s %12s %12s %12s %12s%n",
+                "slots", "players", "card ns/op", "token ns/op", "slot ns/op", "claim ns/op", "publish ns/op");
+        for (int round = 0; round < 2; round++) // the first round warms up the JIT
+            for (int[] grid : GRIDS)
+                for (int players : PLAYERS)
+                    run(grid[0], grid[1], players, round == 1);
+    }
+
+    private static void run(int rows, int columns, int players, boolean print) {
+        Properties properties = new Properties();
+        properties.put("Rows", Integer.toString(rows));
+        properties.put("Columns", Integer.toString(columns));
+        properties.put("FeatureCount", Integer.toString(featureCountFor(rows * columns)));
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(players));
+        properties.put("TableDelaySeconds", "0");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        Table table = new Table(env);
+        for (int slot = 0; slot < config.tableSize; slot++)
+            table.placeCard(slot, slot);
+        table.publishSnapshot();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            int slot = random.nextInt(config.tableSize);
+            table.removeCard(slot);
+            table.placeCard(slot, slot);
+        }
+        long cards = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            int player = random.nextInt(players), slot = random.nextInt(config.tableSize);
+            if (!table.removeToken(player, slot)) table.placeToken(player, slot);
+        }
+        long tokens = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            int slot = random.nextInt(config.tableSize);
+            table.placeToken(random.nextInt(players), slot);
+            table.removeSlotTokens(slot);
+        }
+        long slots = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            int player = random.nextInt(players);
+            if (table.tokenCount(player) == config.featureSize) {
+                TableSnapshot view = table.snapshot();
+                int[] cards3 = table.tokenSlots(player);
+                for (int j = 0; j < cards3.length; j++) cards3[j] = view.card(cards3[j]);
+                sink += env.util.testSet(cards3) ? 1 : 0;
+            }
+        }
+        long claims = System.nanoTime() - start;
+
+        int publishes = OPERATIONS / 10;
+        start = System.nanoTime();
+        for (int i = 0; i < publishes; i++)
+            table.publishSnapshot();
+        long publish = System.nanoTime() - start;
+        table.hintEngine().shutdown();
+
+        if (print)
+            System.out.printf("%-8d %-8d %12.1f %12.1f %12.1f %12.1f %12.1f%n", config.tableSize, players,
+                    cards / 2.0 / OPERATIONS, (double) tokens / OPERATIONS, slots / 2.0 / OPERATIONS,
+                    (double) claims / OPERATIONS, (double) publish / publishes);
+    }
+
+    /**
+     * @return - the smallest number of features whose deck has enough cards to fill the table.
+     */
+    static int featureCountFor(int tableSize) {
+        int featureCount = 4;
+        while (Math.pow(3, featureCount) < tableSize) featureCount++;
+        return featureCount;
+    }
+}
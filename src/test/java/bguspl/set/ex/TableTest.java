@@ -11,7 +11,10 @@ import java.util.List;
 import java.util.Properties;
 import java.util.logging.Logger;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TableTest {
 
@@ -40,19 +43,15 @@ class TableTest {
     }
 
     private int fillSomeSlots() {
-        slotToCard[1] = 3;
-        slotToCard[2] = 5;
-        cardToSlot[3] = 1;
-        cardToSlot[5] = 2;
+        table.placeCard(3, 1);
+        table.placeCard(5, 2);
 
         return 2;
     }
 
     private void fillAllSlots() {
-        for (int i = 0; i < slotToCard.length; ++i) {
-            slotToCard[i] = i;
-            cardToSlot[i] = i;
-        }
+        for (int i = 0; i < slotToCard.length; ++i)
+            table.placeCard(i, i);
     }
 
     private void placeSomeCardsAndAssert() throws InterruptedException {
@@ -82,6 +81,18 @@ class TableTest {
         assertEquals(slotToCard.length, table.countCards());
     }
 
+    @Test
+    void countCards_AfterARefill() {
+
+        for (int card = 0; card < slotToCard.length; ++card)
+            table.placeCard(card, table.takeOpenSlot());
+        table.removeCard(1);
+        table.removeCard(2);
+        assertEquals(slotToCard.length - 2, table.countCards());
+        table.placeCard(8, table.takeOpenSlot());
+        assertEquals(slotToCard.length - 1, table.countCards());
+    }
+
     @Test
     void placeCard_SomeSlotsAreFilled() throws InterruptedException {
 
@@ -95,6 +106,122 @@ class TableTest {
         placeSomeCardsAndAssert();
     }
 
+    @Test
+    void publishSnapshot_PublishedSnapshotNeverChanges() throws InterruptedException {
+        fillSomeSlots();
+        table.publishSnapshot();
+        TableSnapshot snapshot = table.snapshot();
+        long version = snapshot.version;
+
+        table.placeCard(8, 0);
+        slotToCard[1] = null; // the mapping the snapshot was taken from
+        slotToCard[3] = 7;
+        table.publishSnapshot();
+        snapshot.slotToCard()[2] = 9; // a copy
+
+        assertEquals(version, snapshot.version);
+        assertArrayEquals(new int[]{-1, 3, 5, -1}, snapshot.slotToCard());
+        assertArrayEquals(new int[]{3, 5}, snapshot.cards());
+        assertEquals(2, snapshot.countCards());
+        assertTrue(table.version() > version);
+        assertArrayEquals(new int[]{8, -1, 5, 7}, table.snapshot().slotToCard());
+    }
+
+    @Test
+    void placeToken_UpToFeatureSize() {
+        fillAllSlots();
+        table.placeToken(0, 0);
+        table.placeToken(0, 1);
+        table.placeToken(0, 3);
+        table.placeToken(0, 2); // a player cannot place more tokens than the size of a set
+
+        assertEquals(3, table.tokenCount(0));
+        assertArrayEquals(new int[]{0, 1, 3}, table.tokenSlots(0));
+        assertFalse(table.hasToken(0, 2));
+    }
+
+    @Test
+    void removeToken_OnlyRemovesExistingTokens() {
+        fillAllSlots();
+        table.placeToken(1, 2);
+
+        assertFalse(table.removeToken(1, 3));
+        assertTrue(table.removeToken(1, 2));
+        assertEquals(0, table.tokenCount(1));
+    }
+
+    @Test
+    void removeSlotTokens_RemovesTokensOfAllPlayers() {
+        fillAllSlots();
+        table.placeToken(0, 1);
+        table.placeToken(1, 1);
+        table.placeToken(1, 2);
+        table.removeSlotTokens(1);
+
+        assertEquals(0, table.tokenCount(0));
+        assertArrayEquals(new int[]{2}, table.tokenSlots(1));
+    }
+
+    @Test
+    void removeAllTokens_RemovesEveryToken() {
+        fillAllSlots();
+        table.placeToken(0, 0);
+        table.placeToken(1, 3);
+        table.removeAllTokens();
+
+        assertEquals(0, table.tokenCount(0));
+        assertEquals(0, table.tokenCount(1));
+    }
+
+    @Test
+    void removeSlotTokens_WhilePlayersPlaceAndRemoveTokensOnTheSlot() throws InterruptedException {
+        fillAllSlots();
+        Thread[] players = new Thread[2];
+        for (int i = 0; i < players.length; i++) {
+            int player = i;
+            players[i] = new Thread(() -> {
+                for (int n = 0; n < 100_000; n++)
+                    if (!table.removeToken(player, 1)) table.placeToken(player, 1);
+            });
+            players[i].start();
+        }
+        while (players[0].isAlive() || players[1].isAlive())
+            table.removeSlotTokens(1);
+        for (Thread player : players) player.join();
+
+        for (int player = 0; player < players.length; player++) { // the player's bit, the slot's bit and the count agree
+            assertEquals(table.hasToken(player, 1), (table.slotTokens.get(1) & (1L << player)) != 0);
+            assertEquals(table.hasToken(player, 1) ? 1 : 0, table.tokenCount(player));
+        }
+    }
+
+    @Test
+    void removeAllTokens_WhilePlayersPlaceTokens_LeavesNoCountBehind() throws InterruptedException {
+        fillAllSlots();
+        Thread[] players = new Thread[2];
+        for (int i = 0; i < players.length; i++) {
+            int player = i;
+            players[i] = new Thread(() -> {
+                for (int n = 0; n < 100_000; n++) {
+                    int slot = n % 4;
+                    if (!table.removeToken(player, slot)) table.placeToken(player, slot);
+                }
+            });
+            players[i].start();
+        }
+        while (players[0].isAlive() || players[1].isAlive())
+            table.removeAllTokens();
+        for (Thread player : players) player.join();
+
+        for (int player = 0; player < players.length; player++) {
+            assertEquals(table.tokenSlots(player).length, table.tokenCount(player));
+            assertTrue(table.tokenCount(player) <= 3);
+        }
+        table.removeAllTokens();
+        assertEquals(0, table.tokenCount(0));
+        assertEquals(0, table.tokenCount(1));
+    }
+
     static class MockUserInterface implements UserInterface {
         @Override
         public void dispose() {}
@@ -105,6 +232,8 @@ class TableTest {
         @Override
         public void setCountdown(long millies, boolean warn) {}
         @Override
+        public void setCountdownDeadline(long deadline, long warnMillis) {}
+        @Override
         public void setElapsed(long millies) {}
         @Override
         public void setScore(int player, int score) {}